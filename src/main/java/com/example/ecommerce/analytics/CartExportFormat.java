@@ -0,0 +1,39 @@
+package com.example.ecommerce.analytics;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the cart analytics export.
+ */
+public enum CartExportFormat {
+
+    /** Comma-separated values with a header row. */
+    CSV("text/csv", "csv"),
+
+    /** One JSON object per line. */
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+
+    private final String extension;
+
+    CartExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown format name
+     */
+    public static CartExportFormat parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.ecommerce.analytics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Streams a per-cart summary (customer, categories, products and value) for
+ * abandoned-cart and basket-size reporting.
+ *
+ * The export is a single forward-only query over the cart, category and product join
+ * tables, ordered by cart id so the cart primary key drives the scan and no sort is
+ * needed. Rows are folded into one summary per cart as they arrive and written straight
+ * to the output, so memory does not grow with the number of carts. On H2 the query runs
+ * with {@code LAZY_QUERY_EXECUTION} so the result is not materialized before the first
+ * row; elsewhere {@code ecommerce.export.fetch-size} lets the driver use a cursor.
+ *
+ * Database impact is bounded by running at most {@code ecommerce.export.max-concurrent}
+ * exports at once, in a read-only transaction (served by the replica when one is
+ * configured), and by pacing the scan to {@code ecommerce.export.max-rows-per-second}.
+ */
+@Service
+public class CartExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CartExportService.class);
+
+    /**
+     * One row per product in each of a cart's categories, plus one row for each empty
+     * category and each empty cart. A product belongs to at most one category and a
+     * category to at most one cart, so nothing is counted twice.
+     */
+    static final String CART_ROWS_SQL = "SELECT c.id, c.customer_name, cc.categories_id, p.id, p.price"
+            + " FROM cart c"
+            + " LEFT JOIN cart_categories cc ON cc.cart_id = c.id"
+            + " LEFT JOIN category_products cp ON cp.category_id = cc.categories_id"
+            + " LEFT JOIN product p ON p.id = cp.products_id"
+            + " ORDER BY c.id";
+
+    /** Rows between checks of the pacing budget. */
+    private static final int PACE_INTERVAL_ROWS = 256;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ObjectMapper objectMapper;
+
+    private final Timer exportTimer;
+
+    private final Semaphore permits;
+
+    private final int maxRowsPerSecond;
+
+    private volatile Boolean lazyQueries;
+
+    public CartExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${ecommerce.export.fetch-size:500}") int fetchSize,
+                             @Value("${ecommerce.export.max-concurrent:1}") int maxConcurrent,
+                             @Value("${ecommerce.export.max-rows-per-second:50000}") int maxRowsPerSecond) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.exportTimer = meterRegistry.timer("cart.export");
+        this.permits = new Semaphore(Math.max(maxConcurrent, 1));
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * Reserves one of the export slots. Nothing is read until {@link Export#writeTo} is
+     * called; close the export to free the slot.
+     *
+     * @throws IllegalStateException if {@code ecommerce.export.max-concurrent} exports are already running
+     */
+    public Export open(CartExportFormat format) {
+        if (!permits.tryAcquire()) {
+            throw new IllegalStateException("A cart export is already running");
+        }
+        return new Export(format);
+    }
+
+    /**
+     * A reserved export slot.
+     */
+    public final class Export implements AutoCloseable {
+
+        private final CartExportFormat format;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Export(CartExportFormat format) {
+            this.format = format;
+        }
+
+        public CartExportFormat getFormat() {
+            return format;
+        }
+
+        /**
+         * Streams every cart to {@code out}, which is flushed but not closed.
+         *
+         * @return the number of carts written
+         * @throws IOException if {@code out} fails, for example because the client went away
+         */
+        public long writeTo(OutputStream out) throws IOException {
+            long start = System.nanoTime();
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            CartSummaryWriter summaries = CartSummaryWriter.create(format, writer, objectMapper.getFactory());
+            CartRows rows = new CartRows(summaries);
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> query(rows));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            summaries.flush();
+            long elapsed = System.nanoTime() - start;
+            exportTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Exported {} carts ({} rows) as {} in {} ms", rows.carts, rows.rows, format,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return rows.carts;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private void query(CartRows rows) {
+        boolean lazy = isLazyQuerySupported();
+        if (lazy) {
+            jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION TRUE");
+        }
+        try {
+            jdbcTemplate.query(CART_ROWS_SQL, rows);
+            rows.finish();
+        } finally {
+            if (lazy) {
+                // The connection goes back to the pool; other users expect the default
+                jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION FALSE");
+            }
+        }
+    }
+
+    private boolean isLazyQuerySupported() {
+        Boolean lazy = lazyQueries;
+        if (lazy == null) {
+            lazy = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "H2".equals(connection.getMetaData().getDatabaseProductName()));
+            lazyQueries = lazy;
+        }
+        return lazy;
+    }
+
+    /**
+     * Folds consecutive rows of the same cart into a {@link CartSummary}.
+     */
+    private final class CartRows implements RowCallbackHandler {
+
+        private final CartSummaryWriter out;
+
+        private final Set<Long> categories = new HashSet<>();
+
+        private final long startNanos = System.nanoTime();
+
+        private long cartId = -1;
+
+        private String customerName;
+
+        private int products;
+
+        private double value;
+
+        private long carts;
+
+        private long rows;
+
+        CartRows(CartSummaryWriter out) {
+            this.out = out;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (id != cartId) {
+                finish();
+                cartId = id;
+                customerName = rs.getString(2);
+            }
+            long category = rs.getLong(3);
+            if (!rs.wasNull()) {
+                categories.add(category);
+            }
+            rs.getLong(4);
+            if (!rs.wasNull()) {
+                products++;
+                value += rs.getDouble(5);
+            }
+            if (++rows % PACE_INTERVAL_ROWS == 0) {
+                pace();
+            }
+        }
+
+        /**
+         * Writes the cart in progress, if any.
+         */
+        void finish() {
+            if (cartId < 0) {
+                return;
+            }
+            try {
+                out.write(new CartSummary(cartId, customerName, categories.size(), products, value));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            carts++;
+            cartId = -1;
+            categories.clear();
+            products = 0;
+            value = 0;
+        }
+
+        private void pace() {
+            if (maxRowsPerSecond <= 0) {
+                return;
+            }
+            long ahead = rows * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond - (System.nanoTime() - startNanos);
+            if (ahead <= 0) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(ahead);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Cart export interrupted"));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ecommerce.analytics;
+
+/**
+ * One row of the cart analytics export: the size and value of a single cart.
+ */
+public final class CartSummary {
+
+    private final long cartId;
+
+    private final String customerName;
+
+    private final int categories;
+
+    private final int products;
+
+    private final double value;
+
+    public CartSummary(long cartId, String customerName, int categories, int products, double value) {
+        this.cartId = cartId;
+        this.customerName = customerName;
+        this.categories = categories;
+        this.products = products;
+        this.value = value;
+    }
+
+    public long getCartId() {
+        return cartId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public int getCategories() {
+        return categories;
+    }
+
+    public int getProducts() {
+        return products;
+    }
+
+    /**
+     * Sum of the prices of the products in the cart's categories.
+     */
+    public double getValue() {
+        return value;
+    }
+}
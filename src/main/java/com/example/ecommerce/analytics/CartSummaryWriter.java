@@ -0,0 +1,116 @@
+package com.example.ecommerce.analytics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes cart summaries one at a time in a {@link CartExportFormat}, holding nothing but
+ * the underlying writer's buffer.
+ */
+abstract class CartSummaryWriter {
+
+    static CartSummaryWriter create(CartExportFormat format, Writer out, JsonFactory jsonFactory) throws IOException {
+        switch (format) {
+            case CSV:
+                return new Csv(out);
+            case NDJSON:
+                return new Ndjson(out, jsonFactory);
+            default:
+                throw new IllegalArgumentException("Unsupported export format " + format);
+        }
+    }
+
+    abstract void write(CartSummary summary) throws IOException;
+
+    /**
+     * Flushes buffered rows to the underlying writer.
+     */
+    abstract void flush() throws IOException;
+
+    /** Prices are doubles; round the summed value to cents so rounding noise is not exported. */
+    static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static final class Csv extends CartSummaryWriter {
+
+        private final Writer out;
+
+        Csv(Writer out) throws IOException {
+            this.out = out;
+            out.write("cart_id,customer_name,categories,products,value\n");
+        }
+
+        @Override
+        void write(CartSummary summary) throws IOException {
+            out.write(Long.toString(summary.getCartId()));
+            out.write(',');
+            writeField(summary.getCustomerName());
+            out.write(',');
+            out.write(Integer.toString(summary.getCategories()));
+            out.write(',');
+            out.write(Integer.toString(summary.getProducts()));
+            out.write(',');
+            out.write(money(summary.getValue()).toPlainString());
+            out.write('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        /** RFC 4180 quoting: only fields containing a separator, quote or line break are quoted. */
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+
+    private static final class Ndjson extends CartSummaryWriter {
+
+        private final JsonGenerator json;
+
+        Ndjson(Writer out, JsonFactory jsonFactory) throws IOException {
+            this.json = jsonFactory.createGenerator(out);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Objects are separated by the newline written after each, not Jackson's default space
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(CartSummary summary) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("cartId", summary.getCartId());
+            json.writeStringField("customerName", summary.getCustomerName());
+            json.writeNumberField("categories", summary.getCategories());
+            json.writeNumberField("products", summary.getProducts());
+            json.writeNumberField("value", money(summary.getValue()));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            json.flush();
+        }
+    }
+}
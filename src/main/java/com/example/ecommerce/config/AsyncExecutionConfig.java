@@ -0,0 +1,59 @@
+package com.example.ecommerce.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Executor for the opt-in async controllers ({@code ecommerce.async.enabled=true}).
+ *
+ * Blocking JPA calls run on this bounded pool instead of on servlet container
+ * threads. When the queue is full, new work is rejected immediately rather than
+ * piling up, and pool and queue metrics are published under {@code ecommerce.db}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ecommerce.async", name = "enabled", havingValue = "true")
+public class AsyncExecutionConfig {
+
+    public static final String DB_EXECUTOR = "dbExecutor";
+
+    @Bean(name = DB_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService dbExecutor(MeterRegistry meterRegistry,
+                                      @Value("${ecommerce.async.pool-size:32}") int poolSize,
+                                      @Value("${ecommerce.async.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory("db-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "ecommerce.db");
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private final String prefix;
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
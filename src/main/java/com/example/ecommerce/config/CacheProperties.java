@@ -0,0 +1,86 @@
+package com.example.ecommerce.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Second-level cache settings, bound from {@code ecommerce.cache.*}.
+ */
+@ConfigurationProperties(prefix = "ecommerce.cache")
+public class CacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Enables Hibernate's query cache for repository queries that opt in with the
+     * {@code org.hibernate.cacheable} hint.
+     */
+    private boolean queriesEnabled = false;
+
+    private boolean statisticsEnabled = true;
+
+    /**
+     * Every region Hibernate uses must be listed here; unknown regions fail at startup.
+     */
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isQueriesEnabled() {
+        return queriesEnabled;
+    }
+
+    public void setQueriesEnabled(boolean queriesEnabled) {
+        this.queriesEnabled = queriesEnabled;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    public void setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    public static class Region {
+
+        private long maxEntries = 10_000;
+
+        /**
+         * Zero keeps entries until they are evicted or invalidated.
+         */
+        private long expireAfterWriteSeconds = 0;
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getExpireAfterWriteSeconds() {
+            return expireAfterWriteSeconds;
+        }
+
+        public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+            this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+        }
+    }
+}
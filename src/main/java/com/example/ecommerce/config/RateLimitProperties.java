@@ -0,0 +1,154 @@
+package com.example.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Admission control settings, bound from {@code ecommerce.rate-limit.*}.
+ */
+@ConfigurationProperties(prefix = "ecommerce.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Request header identifying the client, set by a gateway in front of the service.
+     */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * Whether clients are identified by {@link #clientHeader}, for rate limits and for
+     * read-your-writes routing. Off by default: the header is chosen by the caller, so
+     * without a gateway vouching for it clients are keyed by authenticated principal or
+     * remote address.
+     */
+    private boolean trustClientHeader;
+
+    /**
+     * Sustained requests per second allowed for each client across all endpoints.
+     */
+    private double clientRate = 100;
+
+    private int clientBurst = 200;
+
+    /**
+     * Upper bound on tracked clients; beyond it, the least valuable buckets are evicted.
+     */
+    private int maxClients = 100_000;
+
+    private List<Route> routes = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    public void setClientHeader(String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    public boolean isTrustClientHeader() {
+        return trustClientHeader;
+    }
+
+    public void setTrustClientHeader(boolean trustClientHeader) {
+        this.trustClientHeader = trustClientHeader;
+    }
+
+    public double getClientRate() {
+        return clientRate;
+    }
+
+    public void setClientRate(double clientRate) {
+        this.clientRate = clientRate;
+    }
+
+    public int getClientBurst() {
+        return clientBurst;
+    }
+
+    public void setClientBurst(int clientBurst) {
+        this.clientBurst = clientBurst;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * Budget for one endpoint, shared by all clients. Unset limits are not enforced.
+     */
+    public static class Route {
+
+        private String method;
+
+        private String pattern;
+
+        private double rate;
+
+        private int burst;
+
+        private int maxConcurrent;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+}
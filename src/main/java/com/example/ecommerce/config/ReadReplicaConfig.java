@@ -0,0 +1,89 @@
+package com.example.ecommerce.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.example.ecommerce.datasource.ReadWriteRoutingDataSource;
+import com.example.ecommerce.datasource.ReadYourWritesTracker;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Read/write splitting, enabled by setting {@code ecommerce.datasource.replica.url}.
+ *
+ * The primary keeps the regular {@code spring.datasource.*} settings. Read-only
+ * transactions go to the replica unless the same client, identified as for rate limits
+ * by {@link com.example.ecommerce.web.ClientContext#resolve}, wrote within the last
+ * {@code ecommerce.datasource.replica.read-your-writes-ms}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ecommerce.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    private final DataSourceProperties primaryProperties;
+
+    private final ReadYourWritesTracker tracker;
+
+    @Value("${ecommerce.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${ecommerce.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${ecommerce.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    public ReadReplicaConfig(DataSourceProperties primaryProperties,
+                             @Value("${ecommerce.datasource.replica.read-your-writes-ms:1000}") long readYourWritesMillis) {
+        this.primaryProperties = primaryProperties;
+        this.tracker = new ReadYourWritesTracker(readYourWritesMillis);
+    }
+
+    @Bean(autowireCandidate = false)
+    public HikariDataSource primaryDataSource() {
+        HikariDataSource dataSource = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(autowireCandidate = false)
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(replicaUrl).username(replicaUsername).password(replicaPassword).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource(), replicaDataSource(), tracker));
+    }
+
+    /**
+     * With open-in-view, Hibernate would otherwise hold the first connection it got for
+     * the rest of the request, so a write following a read could land on the replica.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpiredWrites() {
+        tracker.evictExpired();
+    }
+}
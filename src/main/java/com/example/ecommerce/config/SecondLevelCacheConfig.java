@@ -0,0 +1,63 @@
+package com.example.ecommerce.config;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Hibernate second-level and query caching backed by an in-process Caffeine JCache
+ * provider. Each region is created up front with the size and expiry configured
+ * under {@code ecommerce.cache.regions.*}, so no cache is ever unbounded.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(CacheProperties properties) {
+        // One cache manager per application context, so several contexts can share a JVM (as tests do)
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("ecommerce-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (Map.Entry<String, CacheProperties.Region> region : properties.getRegions().entrySet()) {
+            cacheManager.createCache(region.getKey(), configurationFor(region.getValue()));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                    CacheProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put("hibernate.cache.use_second_level_cache", properties.isEnabled());
+            hibernateProperties.put("hibernate.cache.use_query_cache", properties.isQueriesEnabled());
+            hibernateProperties.put("hibernate.cache.region.factory_class", "jcache");
+            hibernateProperties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            hibernateProperties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            hibernateProperties.put("hibernate.generate_statistics", properties.isStatisticsEnabled());
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> configurationFor(CacheProperties.Region region) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(region.getMaxEntries()));
+        if (region.getExpireAfterWriteSeconds() > 0) {
+            configuration.setExpireAfterWrite(
+                    OptionalLong.of(TimeUnit.SECONDS.toNanos(region.getExpireAfterWriteSeconds())));
+        }
+        configuration.setStatisticsEnabled(false);
+        return configuration;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.ecommerce.shard.ShardRouter;
+import com.example.ecommerce.shard.ShardedProductStore;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Product sharding, enabled by {@code ecommerce.sharding.enabled=true}.
+ *
+ * Products move to the configured shards while carts and categories stay on the regular
+ * {@code spring.datasource}. Shard pools are owned by the store rather than registered
+ * as beans, so the primary datasource auto-configuration is unaffected. Each shard is
+ * migrated with the same Flyway scripts as the primary.
+ *
+ * Anything that reads or writes the product table of {@code spring.datasource} directly
+ * would see a catalog that is no longer there. The catalog snapshot is therefore refused
+ * at startup. Carts may not list products (see {@link com.example.ecommerce.service.CartService}),
+ * which keeps the cart-based recommendations and the cart export consistent: neither has
+ * products to report.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardedProductStore shardedProductStore(ShardingProperties properties,
+                                                   @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations,
+                                                   @Value("${ecommerce.snapshot.enabled:false}") boolean snapshotEnabled) {
+        if (snapshotEnabled) {
+            throw new IllegalStateException("ecommerce.sharding.enabled cannot be combined with ecommerce.snapshot.enabled:"
+                    + " the catalog snapshot reads and restores products on spring.datasource");
+        }
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("ecommerce.sharding.enabled requires at least one ecommerce.sharding.shards entry");
+        }
+        List<DataSource> dataSources = new ArrayList<>();
+        long[] rangeStarts = new long[shards.size()];
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(shard.getUrl()).username(shard.getUsername()).password(shard.getPassword()).build();
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setMaximumPoolSize(shard.getMaxPoolSize());
+            Flyway.configure().dataSource(dataSource).locations(locations).load().migrate();
+            dataSources.add(dataSource);
+            rangeStarts[i] = shard.getRangeStart();
+        }
+        ShardedProductStore store = new ShardedProductStore(new ShardRouter(properties.getStrategy(), rangeStarts),
+                dataSources, properties.getFanOutThreads(), properties.getQueryTimeoutMs());
+        store.initializeIdentities();
+        return store;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ecommerce.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.ecommerce.shard.ShardingStrategy;
+
+/**
+ * Product shard topology, bound from {@code ecommerce.sharding.*}.
+ */
+@ConfigurationProperties(prefix = "ecommerce.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    private ShardingStrategy strategy = ShardingStrategy.RANGE;
+
+    /**
+     * Threads used to query shards in parallel for listings and searches.
+     */
+    private int fanOutThreads = 16;
+
+    /**
+     * Upper bound on a fanned-out query; slower shards fail the whole query.
+     */
+    private long queryTimeoutMs = 5_000;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public ShardingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(ShardingStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public int getFanOutThreads() {
+        return fanOutThreads;
+    }
+
+    public void setFanOutThreads(int fanOutThreads) {
+        this.fanOutThreads = fanOutThreads;
+    }
+
+    public long getQueryTimeoutMs() {
+        return queryTimeoutMs;
+    }
+
+    public void setQueryTimeoutMs(long queryTimeoutMs) {
+        this.queryTimeoutMs = queryTimeoutMs;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public static class Shard {
+
+        private String url;
+
+        private String username = "";
+
+        private String password = "";
+
+        private int maxPoolSize = 10;
+
+        /**
+         * Lowest product id held by this shard under {@link ShardingStrategy#RANGE}; the
+         * shard holds ids up to the next shard's range start. Ignored for hashing.
+         */
+        private long rangeStart = 1;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public long getRangeStart() {
+            return rangeStart;
+        }
+
+        public void setRangeStart(long rangeStart) {
+            this.rangeStart = rangeStart;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.ecommerce.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.ecommerce.config.AsyncExecutionConfig;
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.ShardedCartProductsException;
+import com.example.ecommerce.service.TrendingService;
+
+@RestController
+@RequestMapping("/api/async/carts")
+@ConditionalOnProperty(prefix = "ecommerce.async", name = "enabled", havingValue = "true")
+public class AsyncCartController {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    @Qualifier(AsyncExecutionConfig.DB_EXECUTOR)
+    private ExecutorService dbExecutor;
+
+    @Value("${ecommerce.async.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private TransactionTemplate transaction;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @GetMapping("/{customerName}")
+    public CompletableFuture<ResponseEntity<Cart>> getCartByCustomerName(@PathVariable String customerName) {
+        return supply(() -> readOnlyTransaction.execute(status -> cartService.getCartByCustomerName(customerName)
+                .map(cart -> {
+                    initialize(cart);
+                    return ResponseEntity.ok(cart);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build())));
+    }
+
+    @PostMapping
+    public CompletableFuture<ResponseEntity<Cart>> createCart(@RequestBody Cart cart) {
+        return supply(() -> {
+            // The saved cart may be the customer's existing one, so load it before the session closes
+            Cart savedCart;
+            try {
+                savedCart = transaction.execute(status -> {
+                    Cart saved = cartService.saveCart(cart);
+                    initialize(saved);
+                    return saved;
+                });
+            } catch (ShardedCartProductsException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            trendingService.recordCartAdditions(cart);
+            return ResponseEntity.ok(savedCart);
+        });
+    }
+
+    private static void initialize(Cart cart) {
+        Hibernate.initialize(cart.getCategories());
+        for (Category category : cart.getCategories()) {
+            Hibernate.initialize(category.getProducts());
+            category.getProducts().forEach(AsyncProductController::initialize);
+        }
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return DbExecutorCalls.supply(dbExecutor, timeoutMillis, work);
+    }
+}
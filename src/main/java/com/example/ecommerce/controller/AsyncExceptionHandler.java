@@ -0,0 +1,27 @@
+package com.example.ecommerce.controller;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns backpressure from the database executor into fast HTTP errors: a full queue
+ * is {@code 503} and work that outlives {@code ecommerce.async.timeout-ms} is {@code 504}.
+ */
+@RestControllerAdvice(assignableTypes = {AsyncProductController.class, AsyncCartController.class})
+public class AsyncExceptionHandler {
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Void> handleTimeout() {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+    }
+}
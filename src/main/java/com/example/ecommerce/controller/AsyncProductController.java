@@ -0,0 +1,97 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.config.AsyncExecutionConfig;
+import com.example.ecommerce.dto.CompactProduct;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.service.TrendingService;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/async/products")
+@ConditionalOnProperty(prefix = "ecommerce.async", name = "enabled", havingValue = "true")
+public class AsyncProductController {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    @Qualifier(AsyncExecutionConfig.DB_EXECUTOR)
+    private ExecutorService dbExecutor;
+
+    @Value("${ecommerce.async.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @GetMapping
+    public CompletableFuture<List<Product>> getAllProducts() {
+        return supply(() -> readOnlyTransaction.execute(status -> {
+            List<Product> products = productService.getAllProducts();
+            products.forEach(AsyncProductController::initialize);
+            return products;
+        }));
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<Optional<CompactProduct>> getProductById(@PathVariable Long id) {
+        return supply(() -> {
+            Optional<CompactProduct> product = productService.getProductView(id);
+            product.ifPresent(found -> trendingService.recordView(found.getId()));
+            return product;
+        });
+    }
+
+    @PostMapping
+    public CompletableFuture<Product> createProduct(@RequestBody Product product) {
+        return supply(() -> productService.saveProduct(product));
+    }
+
+    @PutMapping("/{id}")
+    public CompletableFuture<Product> updateProduct(@PathVariable Long id, @RequestBody Product product) {
+        return supply(() -> productService.updateProduct(id, product));
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<Void> deleteProduct(@PathVariable Long id) {
+        return supply(() -> {
+            productService.deleteProduct(id);
+            return null;
+        });
+    }
+
+    /**
+     * There is no open-in-view session on the executor threads, so lazy collections
+     * have to be loaded before the transaction ends.
+     */
+    static void initialize(Product product) {
+        Hibernate.initialize(product.getCategories());
+        Hibernate.initialize(product.getAttributes());
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return DbExecutorCalls.supply(dbExecutor, timeoutMillis, work);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.ecommerce.controller;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.ecommerce.analytics.CartExportFormat;
+import com.example.ecommerce.analytics.CartExportService;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class CartAnalyticsController {
+
+    @Autowired
+    private CartExportService cartExportService;
+
+    /**
+     * Streams one summary row per cart as {@code csv} or {@code ndjson}. The body is
+     * written on the request thread as the carts are read, so it is not subject to the
+     * async request timeout. At most {@code ecommerce.export.max-concurrent} exports run
+     * at once; further requests get 429.
+     */
+    @GetMapping("/carts")
+    public void exportCarts(@RequestParam(defaultValue = "csv") String format,
+                            HttpServletResponse response) throws IOException {
+        CartExportFormat exportFormat;
+        try {
+            exportFormat = CartExportFormat.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format " + format);
+        }
+        CartExportService.Export export;
+        try {
+            export = cartExportService.open(exportFormat);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+        try (export) {
+            response.setContentType(exportFormat.getContentType());
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("carts." + exportFormat.getExtension()).build().toString());
+            export.writeTo(response.getOutputStream());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.ecommerce.controller;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,9 +11,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.ecommerce.entity.Cart;
 import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.ShardedCartProductsException;
+import com.example.ecommerce.service.TrendingService;
 
 @RestController
 @RequestMapping("/api/carts")
@@ -21,6 +25,9 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private TrendingService trendingService;
+
    
 
 
@@ -33,7 +40,14 @@ public class CartController {
 
     @PostMapping
     public ResponseEntity<Cart> createCart(@RequestBody Cart cart) {
-        Cart savedCart = cartService.saveCart(cart);
+        Cart savedCart;
+        try {
+            savedCart = cartService.saveCart(cart);
+        } catch (ShardedCartProductsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        // Only the categories in this request are new; the rest of an existing cart was counted before
+        trendingService.recordCartAdditions(cart);
         return ResponseEntity.ok(savedCart);
     }
 
@@ -0,0 +1,109 @@
+package com.example.ecommerce.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.ecommerce.journal.JournalRecord;
+import com.example.ecommerce.journal.ProductJournal;
+import com.example.ecommerce.snapshot.CatalogSnapshotService;
+import com.example.ecommerce.validation.CatalogValidationJob;
+import com.example.ecommerce.validation.ValidationRun;
+
+@RestController
+@RequestMapping("/api/admin/catalog")
+public class CatalogAdminController {
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired(required = false)
+    private ProductJournal productJournal;
+
+    @Autowired
+    private CatalogValidationJob catalogValidationJob;
+
+    @PostMapping("/snapshot")
+    public Map<String, Object> writeSnapshot() throws IOException {
+        int products = catalogSnapshotService.write();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("products", products);
+        result.put("path", catalogSnapshotService.getPath().toAbsolutePath().toString());
+        return result;
+    }
+
+    /**
+     * Journalled product mutations from sequence {@code from} onwards, oldest first.
+     */
+    @GetMapping("/journal")
+    public List<JournalRecord> readJournal(@RequestParam(defaultValue = "1") long from,
+                                           @RequestParam(defaultValue = "100") int limit) throws IOException {
+        int max = Math.min(Math.max(limit, 1), 1_000);
+        List<JournalRecord> records = new ArrayList<>();
+        requireJournal().replay(from, max, records::add);
+        return records;
+    }
+
+    @PostMapping("/journal/compact")
+    public Map<String, Object> compactJournal() throws IOException {
+        return requireJournal().compact();
+    }
+
+    /**
+     * Starts validating the catalog in the background; with {@code fix=false} problems are
+     * only reported. Poll {@code GET /validation} for progress.
+     */
+    @PostMapping("/validation")
+    public ResponseEntity<ValidationRun> startValidation(@RequestParam(defaultValue = "true") boolean fix) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(catalogValidationJob.start(fix));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/validation")
+    public ValidationRun getValidation() {
+        return requireValidationRun();
+    }
+
+    /**
+     * Products that still need attention after the current or last run, up to
+     * {@code ecommerce.validation.max-reported-issues}.
+     */
+    @GetMapping("/validation/issues")
+    public List<ValidationRun.Issue> getValidationIssues(@RequestParam(defaultValue = "100") int limit) {
+        return requireValidationRun().getIssues(Math.min(Math.max(limit, 1), 10_000));
+    }
+
+    @PostMapping("/validation/cancel")
+    public Map<String, Object> cancelValidation() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cancelled", catalogValidationJob.cancel());
+        return result;
+    }
+
+    private ValidationRun requireValidationRun() {
+        return catalogValidationJob.getCurrent()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No catalog validation has run"));
+    }
+
+    private ProductJournal requireJournal() {
+        if (productJournal == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product journal is not enabled");
+        }
+        return productJournal;
+    }
+}
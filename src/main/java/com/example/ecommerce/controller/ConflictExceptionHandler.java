@@ -0,0 +1,23 @@
+package com.example.ecommerce.controller;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Writes that lose a race are {@code 409}: an update of a product changed since the
+ * client read it, or two first saves of the same customer's cart. The client can re-read
+ * and retry.
+ */
+@RestControllerAdvice(assignableTypes = {ProductController.class, CartController.class,
+        AsyncProductController.class, AsyncCartController.class})
+public class ConflictExceptionHandler {
+
+    @ExceptionHandler({OptimisticLockingFailureException.class, DataIntegrityViolationException.class})
+    public ResponseEntity<Void> handleConflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
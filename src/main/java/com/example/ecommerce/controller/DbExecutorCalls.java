@@ -0,0 +1,50 @@
+package com.example.ecommerce.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.example.ecommerce.web.ClientContext;
+
+/**
+ * Runs controller work on the database executor with the caller's {@link ClientContext}.
+ *
+ * Work that outlives the timeout is cancelled, not just abandoned. Queued work never
+ * starts and running work is interrupted, so timed-out requests do not keep occupying
+ * the bounded pool.
+ */
+final class DbExecutorCalls {
+
+    private DbExecutorCalls() {
+    }
+
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException if the executor's queue is full
+     */
+    static <T> CompletableFuture<T> supply(ExecutorService executor, long timeoutMillis, Supplier<T> work) {
+        String clientId = ClientContext.current();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            ClientContext.set(clientId);
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                ClientContext.clear();
+            }
+        });
+        result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+}
@@ -1,12 +1,25 @@
 package com.example.ecommerce.controller;
 
+import com.example.ecommerce.dto.CategoryPage;
+import com.example.ecommerce.dto.RelatedProduct;
+import com.example.ecommerce.dto.TrendingProduct;
 import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.CategoryCountService;
 import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.service.RecommendationService;
+import com.example.ecommerce.service.TrendingService;
+import com.example.ecommerce.web.ProductResponseCache;
+import com.example.ecommerce.web.ProductResponseCache.EncodedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -15,14 +28,81 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ProductResponseCache responseCache;
+
+    @Autowired
+    private CategoryCountService categoryCountService;
+
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<byte[]> getAllProducts(@RequestParam(required = false) Integer page,
+                                                 @RequestParam(defaultValue = "50") int size,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (page == null) {
+            return encoded(responseCache.listing("all", productService::getAllProducts), acceptEncoding);
+        }
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), 500);
+        EncodedResponse body = responseCache.listing(pageNumber + ":" + pageSize,
+                () -> productService.getProductsPage(pageNumber, pageSize));
+        return encoded(body, acceptEncoding);
+    }
+
+    @GetMapping("/trending")
+    public List<TrendingProduct> getTrendingProducts(@RequestParam(defaultValue = "10") int limit) {
+        return trendingService.getTrending(Math.min(limit, 100));
+    }
+
+    @GetMapping("/search")
+    public List<Product> searchProducts(@RequestParam("q") String query,
+                                        @RequestParam(defaultValue = "20") int limit) {
+        return productService.searchProducts(query, Math.min(Math.max(limit, 1), 100));
+    }
+
+    @GetMapping("/by-category/{category}")
+    public CategoryPage getProductsByCategory(@PathVariable String category,
+                                              @RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "50") int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), 500);
+        return new CategoryPage(category, pageNumber, pageSize, categoryCountService.getCount(category),
+                productService.getProductsByCategory(category, pageNumber, pageSize));
+    }
+
+    @GetMapping("/categories")
+    public Map<Long, List<String>> getCategoryMemberships(@RequestParam List<Long> ids) {
+        if (ids.size() > 1_000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most 1000 ids per request");
+        }
+        return productService.getCategoryMemberships(ids);
+    }
+
+    @GetMapping("/categories/counts")
+    public Map<String, Long> getCategoryCounts() {
+        return categoryCountService.getCounts();
     }
 
     @GetMapping("/{id}")
-    public Optional<Product> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        EncodedResponse body = responseCache.product(id, () -> productService.getProductView(id).orElse(null));
+        if (body == null) {
+            return ResponseEntity.ok().build();
+        }
+        trendingService.recordView(id);
+        return encoded(body, acceptEncoding);
+    }
+
+    @GetMapping("/{id}/related")
+    public List<RelatedProduct> getRelatedProducts(@PathVariable Long id,
+                                                   @RequestParam(defaultValue = "10") int limit) {
+        return recommendationService.getRelatedProducts(id, Math.min(limit, 100));
     }
 
     @PostMapping
@@ -30,13 +110,43 @@ public class ProductController {
         return productService.saveProduct(product);
     }
 
+    /**
+     * Replaces a product. With {@code If-Match: <version>} the update only applies if the
+     * product is still at that version, and is otherwise rejected with {@code 409}.
+     */
     @PutMapping("/{id}")
-    public Product updateProduct(@PathVariable Long id, @RequestBody Product product) {
-        return productService.updateProduct(id, product);
+    public Product updateProduct(@PathVariable Long id, @RequestBody Product product,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return productService.updateProduct(id, product, expectedVersion(ifMatch));
     }
 
     @DeleteMapping("/{id}")
     public void deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
     }
+
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String version = ifMatch.trim();
+        if (version.startsWith("W/")) {
+            version = version.substring(2);
+        }
+        try {
+            return Long.parseLong(version.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be a product version");
+        }
+    }
+
+    private static ResponseEntity<byte[]> encoded(EncodedResponse body, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (body.getGzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.getGzip());
+        }
+        return response.body(body.getJson());
+    }
 }
@@ -0,0 +1,103 @@
+package com.example.ecommerce.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.ecommerce.web.ClientContext;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the replica and
+ * everything else to the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the
+ * decision is made after the transaction's read-only flag is known.
+ *
+ * A client's reads are pinned to the primary only once a transaction of theirs has
+ * actually written and committed. Primary connections detect the first statement
+ * that writes, and that registers a single after-commit callback per transaction.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReadYourWritesTracker tracker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackWrites(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackWrites(super.getConnection(username, password));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return tracker.mustReadFromPrimary(ClientContext.current()) ? Target.PRIMARY : Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+    private Connection trackWrites(Connection connection) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ClientContext.current() == null) {
+            return connection;
+        }
+        return WriteDetectingConnection.wrap(connection, this::recordWrite);
+    }
+
+    /**
+     * Records the write once the surrounding transaction commits, or straight away in
+     * auto-commit mode.
+     */
+    private void recordWrite() {
+        String clientId = ClientContext.current();
+        if (clientId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tracker.recordWrite(clientId);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteMarker && ((WriteMarker) synchronization).owner == this) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WriteMarker(clientId));
+    }
+
+    private final class WriteMarker implements TransactionSynchronization {
+
+        private final ReadWriteRoutingDataSource owner = ReadWriteRoutingDataSource.this;
+
+        private final String clientId;
+
+        WriteMarker(String clientId) {
+            this.clientId = clientId;
+        }
+
+        @Override
+        public void afterCommit() {
+            tracker.recordWrite(clientId);
+        }
+    }
+}
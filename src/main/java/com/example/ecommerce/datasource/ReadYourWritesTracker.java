@@ -0,0 +1,46 @@
+package com.example.ecommerce.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers when each client last wrote, so its reads can stay on the primary until
+ * the replica has had time to catch up.
+ */
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    public void recordWrite(String clientId) {
+        if (clientId != null && windowNanos > 0) {
+            lastWrites.put(clientId, System.nanoTime());
+        }
+    }
+
+    public boolean mustReadFromPrimary(String clientId) {
+        if (clientId == null || windowNanos <= 0) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(clientId);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < windowNanos) {
+            return true;
+        }
+        lastWrites.remove(clientId, lastWrite);
+        return false;
+    }
+
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+}
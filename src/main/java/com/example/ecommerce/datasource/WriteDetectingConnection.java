@@ -0,0 +1,52 @@
+package com.example.ecommerce.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Wraps a connection so that {@code onWrite} runs whenever one of its statements
+ * executes something other than a query. {@code execute} is counted as a write because
+ * it may run any SQL.
+ */
+final class WriteDetectingConnection {
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+            "execute", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private WriteDetectingConnection() {
+    }
+
+    static Connection wrap(Connection connection, Runnable onWrite) {
+        return (Connection) Proxy.newProxyInstance(WriteDetectingConnection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement && method.getReturnType().isInterface()) {
+                        return wrapStatement(method.getReturnType(), result, onWrite);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object wrapStatement(Class<?> type, Object statement, Runnable onWrite) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (WRITE_METHODS.contains(method.getName())) {
+                onWrite.run();
+            }
+            return invoke(statement, method, args);
+        };
+        return Proxy.newProxyInstance(WriteDetectingConnection.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
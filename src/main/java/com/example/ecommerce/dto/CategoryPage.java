@@ -0,0 +1,46 @@
+package com.example.ecommerce.dto;
+
+import java.util.List;
+
+import com.example.ecommerce.entity.Product;
+
+public class CategoryPage {
+
+    private final String category;
+
+    private final int page;
+
+    private final int size;
+
+    private final long totalProducts;
+
+    private final List<Product> products;
+
+    public CategoryPage(String category, int page, int size, long totalProducts, List<Product> products) {
+        this.category = category;
+        this.page = page;
+        this.size = size;
+        this.totalProducts = totalProducts;
+        this.products = products;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getTotalProducts() {
+        return totalProducts;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.ecommerce.dto;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.util.StringDictionary;
+
+/**
+ * Immutable read-side copy of a {@link Product} whose categories and attributes are held
+ * as codes into a shared {@link StringDictionary}. The collection getters return
+ * read-only views that decode on access, so serializing one produces the same JSON as
+ * the entity without materializing any per-product collections.
+ */
+public class CompactProduct {
+
+    private final Long id;
+
+    private final String name;
+
+    private final double price;
+
+    private final int[] categories;
+
+    /** Attribute key and value codes, interleaved. */
+    private final int[] attributes;
+
+    private final long version;
+
+    private final StringDictionary dictionary;
+
+    private CompactProduct(Long id, String name, double price, int[] categories, int[] attributes, long version,
+                           StringDictionary dictionary) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.categories = categories;
+        this.attributes = attributes;
+        this.version = version;
+        this.dictionary = dictionary;
+    }
+
+    public static CompactProduct of(Product product, StringDictionary dictionary) {
+        List<String> sourceCategories = product.getCategories();
+        int[] categories = new int[sourceCategories == null ? 0 : sourceCategories.size()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = dictionary.encode(sourceCategories.get(i));
+        }
+        Map<String, String> sourceAttributes = product.getAttributes();
+        int[] attributes = new int[sourceAttributes == null ? 0 : sourceAttributes.size() * 2];
+        if (sourceAttributes != null) {
+            int i = 0;
+            for (Map.Entry<String, String> entry : sourceAttributes.entrySet()) {
+                attributes[i++] = dictionary.encode(entry.getKey());
+                attributes[i++] = dictionary.encode(entry.getValue());
+            }
+        }
+        return new CompactProduct(product.getId(), product.getName(), product.getPrice(),
+                categories, attributes, product.getVersion(), dictionary);
+    }
+
+    /**
+     * The same product with its strings encoded in {@code target} instead, for moving
+     * entries to a rebuilt dictionary.
+     */
+    public CompactProduct recode(StringDictionary target) {
+        int[] recodedCategories = new int[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            recodedCategories[i] = target.encode(dictionary.decode(categories[i]));
+        }
+        int[] recodedAttributes = new int[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            recodedAttributes[i] = target.encode(dictionary.decode(attributes[i]));
+        }
+        return new CompactProduct(id, name, price, recodedCategories, recodedAttributes, version, target);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public List<String> getCategories() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return dictionary.decode(categories[index]);
+            }
+
+            @Override
+            public int size() {
+                return categories.length;
+            }
+        };
+    }
+
+    public Map<String, String> getAttributes() {
+        return new AbstractMap<String, String>() {
+            @Override
+            public Set<Entry<String, String>> entrySet() {
+                return new AbstractSet<Entry<String, String>>() {
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new Iterator<Entry<String, String>>() {
+                            private int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < attributes.length;
+                            }
+
+                            @Override
+                            public Entry<String, String> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                Entry<String, String> entry = new SimpleImmutableEntry<>(
+                                        dictionary.decode(attributes[next]), dictionary.decode(attributes[next + 1]));
+                                next += 2;
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return attributes.length / 2;
+                    }
+                };
+            }
+        };
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.ecommerce.dto;
+
+public class RelatedProduct {
+
+    private final Long productId;
+
+    private final int coPurchaseCount;
+
+    public RelatedProduct(Long productId, int coPurchaseCount) {
+        this.productId = productId;
+        this.coPurchaseCount = coPurchaseCount;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getCoPurchaseCount() {
+        return coPurchaseCount;
+    }
+}
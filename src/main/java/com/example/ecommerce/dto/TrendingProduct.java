@@ -0,0 +1,21 @@
+package com.example.ecommerce.dto;
+
+public class TrendingProduct {
+
+    private final Long productId;
+
+    private final long score;
+
+    public TrendingProduct(Long productId, long score) {
+        this.productId = productId;
+        this.score = score;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public long getScore() {
+        return score;
+    }
+}
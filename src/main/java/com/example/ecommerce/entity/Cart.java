@@ -16,6 +16,9 @@ public class Cart {
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Category> categories = new ArrayList<>();
 
+    @Version
+    private long version;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -40,4 +43,12 @@ public class Cart {
     public void setCategories(List<Category> categories) {
         this.categories = categories;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -1,5 +1,8 @@
 package com.example.ecommerce.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -8,6 +11,8 @@ import java.util.Map;
 
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
 public class Product {
 
     @Id
@@ -19,11 +24,16 @@ public class Product {
     private double price;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product.categories")
     private List<String> categories = new ArrayList<>();
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product.attributes")
     private Map<String, String> attributes = new HashMap<>();
 
+    @Version
+    private long version;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -64,4 +74,12 @@ public class Product {
     public void setAttributes(Map<String, String> attributes) {
         this.attributes = attributes;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
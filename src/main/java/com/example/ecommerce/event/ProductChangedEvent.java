@@ -0,0 +1,56 @@
+package com.example.ecommerce.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.example.ecommerce.entity.Product;
+
+/**
+ * Published by {@link com.example.ecommerce.service.ProductService} after every product
+ * write. Listeners that keep derived state should react after commit.
+ */
+public class ProductChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+
+    private final Long productId;
+
+    private final Product product;
+
+    private final List<String> previousCategories;
+
+    public ProductChangedEvent(Type type, Long productId, Product product) {
+        this(type, productId, product, Collections.emptyList());
+    }
+
+    public ProductChangedEvent(Type type, Long productId, Product product, List<String> previousCategories) {
+        this.type = type;
+        this.productId = productId;
+        this.product = product;
+        this.previousCategories = previousCategories;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * The product as written, or {@code null} for deletions.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * The product's categories before the write; empty for new products.
+     */
+    public List<String> getPreviousCategories() {
+        return previousCategories;
+    }
+}
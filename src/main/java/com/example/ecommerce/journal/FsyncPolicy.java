@@ -0,0 +1,16 @@
+package com.example.ecommerce.journal;
+
+/**
+ * When the journal writer forces written batches to disk.
+ */
+public enum FsyncPolicy {
+
+    /** After every batch: a write is durable once its batch is written (group commit). */
+    ALWAYS,
+
+    /** At most once per {@code ecommerce.journal.fsync-interval-ms}; a crash can lose that window. */
+    INTERVAL,
+
+    /** Never explicitly; durability is left to the operating system. */
+    NEVER
+}
@@ -0,0 +1,53 @@
+package com.example.ecommerce.journal;
+
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * One product mutation as stored in the journal. The payload is the product's JSON as
+ * written, or {@code null} for deletions.
+ */
+public class JournalRecord {
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final ProductChangedEvent.Type type;
+
+    private final long productId;
+
+    private final String payload;
+
+    public JournalRecord(long sequence, long timestamp, ProductChangedEvent.Type type, long productId, String payload) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.productId = productId;
+        this.payload = payload;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Epoch millis at which the mutation was handed to the journal.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public ProductChangedEvent.Type getType() {
+        return type;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.ecommerce.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Re-applies journalled product mutations to a database, for example to roll a restored
+ * backup forward to the last committed change.
+ *
+ * A created or updated record replaces the product row, its categories and its
+ * attributes with the journalled JSON, keeping the product id. A deleted record removes
+ * them. Records are applied in sequence order, {@value #BATCH_SIZE} per transaction, and
+ * the identity column is moved past the highest id at the end. Nothing evicts the
+ * caches of a running application, so replay into its database while it is stopped:
+ *
+ * <pre>
+ * java -cp ecommerce.jar -Dloader.main=com.example.ecommerce.journal.JournalReplayTool \
+ *     org.springframework.boot.loader.PropertiesLauncher \
+ *     &lt;journal directory&gt; &lt;jdbc url&gt; [from sequence] [user] [password]
+ * </pre>
+ */
+public final class JournalReplayTool {
+
+    static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transaction;
+
+    private final ObjectMapper objectMapper;
+
+    public JournalReplayTool(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.objectMapper = objectMapper;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JournalReplayTool <journal directory> <jdbc url> [from sequence] [user] [password]");
+            System.exit(2);
+        }
+        long from = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        DataSource dataSource = new DriverManagerDataSource(args[1], args.length > 3 ? args[3] : "sa",
+                args.length > 4 ? args[4] : "");
+        ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        long start = System.nanoTime();
+        Map<String, Long> result = new JournalReplayTool(dataSource, objectMapper).replay(Paths.get(args[0]), from);
+        System.out.printf("Applied %d records up to sequence %d in %d ms%n", result.get("records"),
+                result.get("lastSequence"), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Applies every record of the journal in {@code directory} from {@code fromSequence} on.
+     *
+     * @return the number of records applied and the last sequence applied
+     */
+    public Map<String, Long> replay(Path directory, long fromSequence) throws IOException {
+        List<JournalRecord> batch = new ArrayList<>(BATCH_SIZE);
+        long[] applied = {0};
+        long last = JournalSegments.replay(directory, fromSequence, Long.MAX_VALUE, record -> {
+            batch.add(record);
+            if (batch.size() == BATCH_SIZE) {
+                applied[0] += apply(batch);
+            }
+        });
+        applied[0] += apply(batch);
+        transaction.executeWithoutResult(status -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM product", Long.class);
+            jdbcTemplate.execute("ALTER TABLE product ALTER COLUMN id RESTART WITH " + (maxId + 1));
+        });
+        return Map.of("records", applied[0], "lastSequence", last);
+    }
+
+    private int apply(List<JournalRecord> batch) {
+        int size = batch.size();
+        if (size > 0) {
+            transaction.executeWithoutResult(status -> batch.forEach(this::apply));
+            batch.clear();
+        }
+        return size;
+    }
+
+    private void apply(JournalRecord record) {
+        long id = record.getProductId();
+        jdbcTemplate.update("DELETE FROM product_categories WHERE product_id = ?", id);
+        jdbcTemplate.update("DELETE FROM product_attributes WHERE product_id = ?", id);
+        if (record.getType() == ProductChangedEvent.Type.DELETED || record.getPayload() == null) {
+            jdbcTemplate.update("DELETE FROM product WHERE id = ?", id);
+            return;
+        }
+        Product product = read(record);
+        int updated = jdbcTemplate.update("UPDATE product SET name = ?, price = ?, version = ? WHERE id = ?",
+                product.getName(), product.getPrice(), product.getVersion(), id);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO product (id, name, price, version) VALUES (?, ?, ?, ?)",
+                    id, product.getName(), product.getPrice(), product.getVersion());
+        }
+        if (product.getCategories() != null) {
+            for (String category : product.getCategories()) {
+                jdbcTemplate.update("INSERT INTO product_categories (product_id, categories) VALUES (?, ?)", id, category);
+            }
+        }
+        if (product.getAttributes() != null) {
+            for (Map.Entry<String, String> attribute : product.getAttributes().entrySet()) {
+                jdbcTemplate.update("INSERT INTO product_attributes (product_id, attributes_key, attributes) VALUES (?, ?, ?)",
+                        id, attribute.getKey(), attribute.getValue());
+            }
+        }
+    }
+
+    private Product read(JournalRecord record) {
+        try {
+            return objectMapper.readValue(record.getPayload(), Product.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable payload at journal sequence " + record.getSequence(), e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.ecommerce.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import com.example.ecommerce.event.ProductChangedEvent;
+
+/**
+ * On-disk format of the product journal.
+ *
+ * A journal is a directory of segment files named after the first sequence number they
+ * may contain, so lexical order is journal order.
+ *
+ * <pre>
+ * segment : magic "EJNL" | int version | record*
+ * record  : int bodyLength | int CRC32 of body | body
+ * body    : long sequence | long timestamp | byte type | long productId | int n (-1 for null) | n bytes UTF-8 payload
+ * </pre>
+ *
+ * A record that is cut short or fails its checksum ends the segment, which is how a
+ * write torn by a crash is discarded.
+ */
+public final class JournalSegments {
+
+    static final int MAGIC = 0x454A4E4C;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 8;
+
+    static final int RECORD_HEADER_BYTES = 8;
+
+    private static final int BODY_FIXED_BYTES = 8 + 8 + 1 + 8 + 4;
+
+    private static final String SUFFIX = ".journal";
+
+    private static final ProductChangedEvent.Type[] TYPES = ProductChangedEvent.Type.values();
+
+    private JournalSegments() {
+    }
+
+    /**
+     * Segments in {@code directory}, oldest first.
+     */
+    public static List<Path> list(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    static byte[] payloadBytes(String payload) {
+        return payload == null ? null : payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int encodedSize(byte[] payload) {
+        return RECORD_HEADER_BYTES + BODY_FIXED_BYTES + (payload == null ? 0 : payload.length);
+    }
+
+    /**
+     * Appends one record to {@code buffer}, which must have {@link #encodedSize} bytes left.
+     */
+    static void encode(ByteBuffer buffer, long sequence, long timestamp, ProductChangedEvent.Type type,
+                       long productId, byte[] payload) {
+        int start = buffer.position();
+        int bodyStart = start + RECORD_HEADER_BYTES;
+        buffer.position(bodyStart);
+        buffer.putLong(sequence).putLong(timestamp).put((byte) type.ordinal()).putLong(productId);
+        if (payload == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(payload.length).put(payload);
+        }
+        int end = buffer.position();
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.position(bodyStart).limit(end);
+        crc.update(body);
+        buffer.putInt(start, end - bodyStart).putInt(start + 4, (int) crc.getValue());
+    }
+
+    /**
+     * Reads every intact record of {@code segment} in order.
+     *
+     * @return {@code true} if the whole segment was intact
+     */
+    public static boolean read(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+        return readWhile(segment, record -> {
+            consumer.accept(record);
+            return true;
+        });
+    }
+
+    /**
+     * Reads intact records of {@code segment} in order until {@code consumer} returns
+     * {@code false}.
+     *
+     * @return {@code false} if a torn or corrupt record was reached
+     */
+    static boolean readWhile(Path segment, Predicate<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return size == 0;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, 1 << 20));
+            channel.read(buffer);
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a journal segment: " + segment);
+            }
+            long position = HEADER_BYTES;
+            CRC32 crc = new CRC32();
+            while (position < size) {
+                if (buffer.remaining() < RECORD_HEADER_BYTES) {
+                    buffer = refill(channel, buffer, position, RECORD_HEADER_BYTES);
+                    if (buffer.remaining() < RECORD_HEADER_BYTES) {
+                        return false;
+                    }
+                }
+                int length = buffer.getInt(buffer.position());
+                if (length < BODY_FIXED_BYTES || position + RECORD_HEADER_BYTES + length > size) {
+                    return false;
+                }
+                if (buffer.remaining() < RECORD_HEADER_BYTES + length) {
+                    buffer = refill(channel, buffer, position, RECORD_HEADER_BYTES + length);
+                }
+                buffer.getInt();
+                int checksum = buffer.getInt();
+                ByteBuffer body = buffer.slice();
+                body.limit(length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return false;
+                }
+                if (!consumer.test(decode(body))) {
+                    return true;
+                }
+                buffer.position(buffer.position() + length);
+                position += RECORD_HEADER_BYTES + length;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads the segments of {@code directory} that may hold sequence {@code fromSequence}
+     * or later, delivering up to {@code limit} records with a sequence of at least
+     * {@code fromSequence}. Segment names give the first sequence of each segment, so the
+     * ones ending before {@code fromSequence} are not opened, and reading stops once
+     * {@code limit} records have been delivered. Records whose sequence is not above the
+     * last one delivered (left over from an interrupted compaction or a retried batch) are
+     * skipped.
+     *
+     * @return the highest sequence delivered, or {@code fromSequence - 1} if none
+     */
+    public static long replay(Path directory, long fromSequence, long limit, Consumer<JournalRecord> consumer)
+            throws IOException {
+        long[] last = {fromSequence - 1};
+        long[] delivered = {0};
+        List<Path> segments = list(directory);
+        for (int i = 0; i < segments.size() && delivered[0] < limit; i++) {
+            // Every record of a segment precedes the first sequence of the next one
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            readWhile(segments.get(i), record -> {
+                if (record.getSequence() > last[0]) {
+                    last[0] = record.getSequence();
+                    consumer.accept(record);
+                    delivered[0]++;
+                }
+                return delivered[0] < limit;
+            });
+        }
+        return last[0];
+    }
+
+    private static ByteBuffer refill(FileChannel channel, ByteBuffer buffer, long position, int needed) throws IOException {
+        ByteBuffer next = buffer.capacity() >= needed ? buffer : ByteBuffer.allocate(needed);
+        next.clear();
+        channel.read(next, position);
+        next.flip();
+        return next;
+    }
+
+    private static JournalRecord decode(ByteBuffer body) {
+        long sequence = body.getLong();
+        long timestamp = body.getLong();
+        ProductChangedEvent.Type type = TYPES[body.get()];
+        long productId = body.getLong();
+        int length = body.getInt();
+        String payload = null;
+        if (length >= 0) {
+            byte[] bytes = new byte[length];
+            body.get(bytes);
+            payload = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new JournalRecord(sequence, timestamp, type, productId, payload);
+    }
+}
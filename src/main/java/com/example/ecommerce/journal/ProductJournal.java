@@ -0,0 +1,471 @@
+package com.example.ecommerce.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Append-only journal of committed product mutations, for audit and replay.
+ *
+ * Writers only encode the product and put it on a lock-free queue. A single background
+ * thread drains the queue in batches, assigns sequence numbers, writes each batch with
+ * one {@link FileChannel} write into the current segment and then forces it according
+ * to the {@link FsyncPolicy}, so one fsync covers every mutation in the batch. When more
+ * than {@code max-pending} mutations are waiting, writers are held back rather than
+ * dropping entries.
+ *
+ * Segments roll at {@code segment-bytes} and a new one is started on every restart.
+ * {@link #compact()} rewrites the sealed segments down to the latest record per product.
+ */
+@Service
+@ConditionalOnProperty(name = "ecommerce.journal.enabled", havingValue = "true")
+public class ProductJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductJournal.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long RETRY_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong appended = new AtomicLong();
+
+    private final ObjectMapper objectMapper;
+
+    private final DistributionSummary batchSizes;
+
+    private final Path directory;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long fsyncIntervalNanos;
+
+    private final long segmentBytes;
+
+    private final int maxBatch;
+
+    private final int maxPending;
+
+    private volatile long written;
+
+    private volatile long lastSequence;
+
+    private volatile boolean idle;
+
+    private volatile boolean closed;
+
+    private volatile Path activeSegment;
+
+    private Thread writer;
+
+    private FileChannel channel;
+
+    private long segmentSize;
+
+    private long lastForce;
+
+    private boolean unforced;
+
+    public ProductJournal(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${ecommerce.journal.directory:data/journal}") String directory,
+                          @Value("${ecommerce.journal.fsync:ALWAYS}") FsyncPolicy fsyncPolicy,
+                          @Value("${ecommerce.journal.fsync-interval-ms:100}") long fsyncIntervalMs,
+                          @Value("${ecommerce.journal.segment-bytes:67108864}") long segmentBytes,
+                          @Value("${ecommerce.journal.max-batch:512}") int maxBatch,
+                          @Value("${ecommerce.journal.max-pending:65536}") int maxPending) {
+        this.objectMapper = objectMapper;
+        this.batchSizes = meterRegistry.summary("product.journal.batch.size");
+        meterRegistry.gauge("product.journal.pending", pending);
+        this.directory = Paths.get(directory);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.segmentBytes = segmentBytes;
+        this.maxBatch = maxBatch;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Recovers the last sequence number from the newest segment, opens a fresh segment
+     * and starts the writer thread.
+     */
+    @PostConstruct
+    public synchronized void start() throws IOException {
+        if (writer != null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = JournalSegments.list(directory);
+        long last = 0;
+        for (int i = segments.size() - 1; i >= 0 && last == 0; i--) {
+            long[] newest = {JournalSegments.firstSequence(segments.get(i)) - 1};
+            if (!JournalSegments.read(segments.get(i), record -> newest[0] = Math.max(newest[0], record.getSequence()))) {
+                log.warn("Discarded torn tail of journal segment {}", segments.get(i));
+            }
+            last = newest[0];
+        }
+        lastSequence = last;
+        openSegment(last + 1);
+        writer = new Thread(this::runWriter, "product-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Product journal at {} resuming after sequence {} (fsync {})", directory, last, fsyncPolicy);
+    }
+
+    /**
+     * Drains everything already queued, forces it to disk and stops the writer.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            return;
+        }
+        try {
+            String payload = event.getProduct() == null ? null : objectMapper.writeValueAsString(event.getProduct());
+            append(event.getType(), event.getProductId(), payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Queues a mutation for the writer thread, waiting while the queue is full.
+     */
+    public void append(ProductChangedEvent.Type type, long productId, String payload) {
+        if (closed) {
+            throw new IllegalStateException("Product journal is closed");
+        }
+        while (pending.get() >= maxPending) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+        pending.incrementAndGet();
+        queue.offer(new Entry(System.currentTimeMillis(), type, productId, JournalSegments.payloadBytes(payload)));
+        appended.incrementAndGet();
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Waits until everything appended before the call has been written (and forced, for
+     * {@link FsyncPolicy#ALWAYS}).
+     *
+     * @return {@code false} if that did not happen within {@code timeoutMillis}
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = appended.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (written < target) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers every journalled record with a sequence of at least {@code fromSequence}.
+     * Only records already written are seen; call {@link #flush} first to include
+     * everything appended so far.
+     */
+    public long replay(long fromSequence, Consumer<JournalRecord> consumer) throws IOException {
+        return replay(fromSequence, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Like {@link #replay(long, Consumer)}, stopping after {@code limit} records.
+     */
+    public long replay(long fromSequence, long limit, Consumer<JournalRecord> consumer) throws IOException {
+        return JournalSegments.replay(directory, fromSequence, limit, consumer);
+    }
+
+    /**
+     * Rewrites all sealed segments into one holding only the latest record of each product.
+     * A deletion is kept as a tombstone, so replaying the compacted journal onto a backup
+     * taken before it still deletes the product. The active segment is left alone.
+     *
+     * @return the number of records before and after compaction
+     */
+    @Scheduled(cron = "${ecommerce.journal.compaction-cron:-}")
+    public synchronized Map<String, Object> compact() throws IOException {
+        Path active = activeSegment;
+        List<Path> sealed = new ArrayList<>();
+        for (Path segment : JournalSegments.list(directory)) {
+            if (segment.compareTo(active) < 0) {
+                sealed.add(segment);
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("segments", sealed.size());
+        if (sealed.size() < 2) {
+            result.put("recordsBefore", null);
+            result.put("recordsAfter", null);
+            return result;
+        }
+        Map<Long, JournalRecord> latest = new LinkedHashMap<>();
+        long[] before = {0, 0};
+        for (Path segment : sealed) {
+            JournalSegments.read(segment, record -> {
+                if (record.getSequence() > before[1]) {
+                    before[0]++;
+                    before[1] = record.getSequence();
+                    // Re-inserted so the records stay in sequence order
+                    latest.remove(record.getProductId());
+                    latest.put(record.getProductId(), record);
+                }
+            });
+        }
+        Path target = sealed.get(0);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            JournalSegments.writeHeader(buffer);
+            for (JournalRecord record : latest.values()) {
+                byte[] payload = JournalSegments.payloadBytes(record.getPayload());
+                int size = JournalSegments.encodedSize(payload);
+                if (buffer.remaining() < size) {
+                    drain(out, buffer);
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocate(size);
+                    }
+                }
+                JournalSegments.encode(buffer, record.getSequence(), record.getTimestamp(), record.getType(),
+                        record.getProductId(), payload);
+            }
+            drain(out, buffer);
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path segment : sealed.subList(1, sealed.size())) {
+            Files.delete(segment);
+        }
+        result.put("recordsBefore", before[0]);
+        result.put("recordsAfter", latest.size());
+        log.info("Compacted {} journal segments from {} to {} records", sealed.size(), before[0], latest.size());
+        return result;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sequence number of the newest record written.
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    private void runWriter() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            Entry next;
+            while (batch.size() < maxBatch && (next = queue.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                if (closed && queue.isEmpty()) {
+                    break;
+                }
+                idle = true;
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(unforced && fsyncPolicy == FsyncPolicy.INTERVAL
+                            ? Math.min(fsyncIntervalNanos, IDLE_PARK_NANOS) : IDLE_PARK_NANOS);
+                }
+                idle = false;
+                forceIfDue();
+                continue;
+            }
+            try {
+                buffer = writeBatch(batch, buffer);
+                batchSizes.record(batch.size());
+                pending.addAndGet(-batch.size());
+                written += batch.size();
+                batch.clear();
+            } catch (IOException e) {
+                // Anything half-written fails its checksum; the retried records keep their
+                // sequence numbers and replay skips the duplicates.
+                if (closed) {
+                    log.error("Product journal write failed while closing, {} records lost", pending.get(), e);
+                    break;
+                }
+                log.error("Product journal write failed, retrying {} records in a new segment", batch.size(), e);
+                LockSupport.parkNanos(RETRY_PARK_NANOS);
+                rollQuietly(batch.get(0).sequence);
+            }
+        }
+        try {
+            force();
+            channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close product journal segment {}", activeSegment, e);
+        }
+    }
+
+    private ByteBuffer writeBatch(List<Entry> batch, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        for (Entry entry : batch) {
+            if (entry.sequence == 0) {
+                entry.sequence = ++lastSequence;
+            }
+            int size = JournalSegments.encodedSize(entry.payload);
+            long segmentUsed = segmentSize + buffer.position();
+            if (segmentUsed + size > segmentBytes && segmentUsed > JournalSegments.HEADER_BYTES) {
+                segmentSize += drain(channel, buffer);
+                roll(entry.sequence);
+            }
+            if (buffer.remaining() < size) {
+                segmentSize += drain(channel, buffer);
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocateDirect(size);
+                }
+            }
+            JournalSegments.encode(buffer, entry.sequence, entry.timestamp, entry.type, entry.productId, entry.payload);
+        }
+        segmentSize += drain(channel, buffer);
+        unforced = true;
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            force();
+        } else {
+            forceIfDue();
+        }
+        return buffer;
+    }
+
+    private void forceIfDue() {
+        if (unforced && fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+            try {
+                force();
+            } catch (IOException e) {
+                log.error("Failed to force product journal segment {}", activeSegment, e);
+            }
+        }
+    }
+
+    private void force() throws IOException {
+        if (unforced && fsyncPolicy != FsyncPolicy.NEVER) {
+            channel.force(false);
+        }
+        unforced = false;
+        lastForce = System.nanoTime();
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        force();
+        channel.close();
+        openSegment(firstSequence);
+    }
+
+    private void rollQuietly(long firstSequence) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already failing; the new segment is what matters
+        }
+        try {
+            openSegment(firstSequence);
+        } catch (IOException e) {
+            log.error("Failed to open product journal segment", e);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path segment = JournalSegments.segmentPath(directory, firstSequence);
+        FileChannel opened = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(JournalSegments.HEADER_BYTES);
+        JournalSegments.writeHeader(header);
+        header.flip();
+        while (header.hasRemaining()) {
+            opened.write(header);
+        }
+        channel = opened;
+        segmentSize = JournalSegments.HEADER_BYTES;
+        activeSegment = segment;
+    }
+
+    private static int drain(FileChannel target, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        buffer.clear();
+        return bytes;
+    }
+
+    private static class Entry {
+
+        final long timestamp;
+
+        final ProductChangedEvent.Type type;
+
+        final long productId;
+
+        final byte[] payload;
+
+        long sequence;
+
+        Entry(long timestamp, ProductChangedEvent.Type type, long productId, byte[] payload) {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.productId = productId;
+            this.payload = payload;
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package com.example.ecommerce.repository;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.ecommerce.entity.Cart;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    Optional<Cart> findByCustomerName(String customerName);
+
+    @Query("select distinct c.name from Category c where c.name is not null")
+    List<String> findCategoryNames();
 }
@@ -1,10 +1,67 @@
 package com.example.ecommerce.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.ecommerce.entity.Product;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    @Query("select p from Product p")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Product> findAllCached();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findForUpdateById(@Param("id") Long id);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Product> findByNameContainingIgnoreCaseOrderByNameAscIdAsc(String name, Pageable pageable);
+
+    /**
+     * One row per product even if the category is repeated in its list, so pages agree
+     * with {@link #countProductsByCategory()}.
+     */
+    @Query("select distinct p from Product p join p.categories c where c = :category order by p.id")
+    List<Product> findByCategory(@Param("category") String category, Pageable pageable);
+
+    /**
+     * Loads the categories of all the given products in one query. Products already in
+     * the persistence context have their collection filled in.
+     */
+    @Query("select distinct p from Product p left join fetch p.categories where p.id in :ids")
+    List<Product> fetchCategories(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Loads the attributes of all the given products in one query, like
+     * {@link #fetchCategories(Collection)}.
+     */
+    @Query("select distinct p from Product p left join fetch p.attributes where p.id in :ids")
+    List<Product> fetchAttributes(@Param("ids") Collection<Long> ids);
+
+    /**
+     * (product id, category) pairs for all of the given products, in one query.
+     */
+    @Query("select p.id, c from Product p join p.categories c where p.id in :ids")
+    List<Object[]> findCategoryMemberships(@Param("ids") Collection<Long> ids);
+
+    /**
+     * (category, number of distinct products) for every category.
+     */
+    @Query("select c, count(distinct p.id) from Product p join p.categories c where c is not null group by c")
+    List<Object[]> countProductsByCategory();
 }
@@ -1,12 +1,19 @@
 package com.example.ecommerce.service;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
 import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.shard.ShardedProductStore;
 
 @Service
 public class CartService {
@@ -15,14 +22,103 @@ public class CartService {
     @Autowired
     private CartRepository cartRepository;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
+    /**
+     * Set when products are sharded. Cart categories reference products on
+     * {@code spring.datasource}, so carts may then not list products.
+     */
+    @Autowired(required = false)
+    private ShardedProductStore shardedStore;
+
+    /**
+     * Set when the customer name column compares case-insensitively, as the
+     * {@code VARCHAR_IGNORECASE} column of the migrations does, so the unique index finds
+     * every spelling of a name.
+     */
+    @Value("${ecommerce.carts.case-insensitive-names:true}")
+    private boolean caseInsensitiveNames;
+
+    /**
+     * Looks the cart up through the unique index on the customer name, ignoring case.
+     * If the column compares case-sensitively, a name the index does not find is looked
+     * for among all carts.
+     */
+    @Transactional(readOnly = true)
     public Optional<Cart> getCartByCustomerName(String customerName) {
+        Optional<Cart> cart = cartRepository.findByCustomerName(customerName);
+        if (cart.isPresent() || caseInsensitiveNames) {
+            return cart;
+        }
         return cartRepository.findAll()
                 .stream()
-                .filter(cart -> cart.getCustomerName().equalsIgnoreCase(customerName))
+                .filter(candidate -> candidate.getCustomerName().equalsIgnoreCase(customerName))
                 .findFirst();
     }
 
+    /**
+     * Distinct names of the categories carts are organized into.
+     */
+    @Transactional(readOnly = true)
+    public List<String> getCategoryNames() {
+        return cartRepository.findCategoryNames();
+    }
+
+    /**
+     * Saves a new cart, or adds its categories to the cart the customer already has:
+     * customers have one cart each. A concurrent save for the same customer fails with a
+     * {@code DataIntegrityViolationException} (both creating the cart) or an
+     * {@code OptimisticLockingFailureException} (both extending it) and can be retried.
+     *
+     * @throws ShardedCartProductsException if products are sharded and the cart lists products
+     */
+    @Transactional
     public Cart saveCart(Cart cart) {
-        return cartRepository.save(cart);
+        if (shardedStore != null && listsProducts(cart)) {
+            throw new ShardedCartProductsException();
+        }
+        Cart target = cart;
+        if (cart.getId() == null && cart.getCustomerName() != null) {
+            Optional<Cart> existing = cartRepository.findByCustomerName(cart.getCustomerName());
+            if (existing.isPresent()) {
+                target = existing.get();
+                if (cart.getCategories() != null) {
+                    target.getCategories().addAll(cart.getCategories());
+                }
+            }
+        }
+        Cart savedCart = cartRepository.save(target);
+        recordAfterCommit(savedCart);
+        return savedCart;
+    }
+
+    /**
+     * Counts the cart's co-purchases once the save has committed, so a save that fails
+     * at flush or commit (and is retried) does not count its pairs twice.
+     */
+    private void recordAfterCommit(Cart cart) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recommendationService.recordCart(cart);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recommendationService.recordCart(cart);
+            }
+        });
+    }
+
+    private static boolean listsProducts(Cart cart) {
+        if (cart.getCategories() == null) {
+            return false;
+        }
+        for (Category category : cart.getCategories()) {
+            if (category.getProducts() != null && !category.getProducts().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,111 @@
+package com.example.ecommerce.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.ecommerce.event.ProductChangedEvent;
+
+/**
+ * Number of products in each category, held in memory and adjusted by every committed
+ * product write instead of being counted on each request.
+ *
+ * Counts are loaded from the database on first use and recounted on
+ * {@code ecommerce.categories.recount-cron}, every 10 minutes by default. Products
+ * inserted through the cart to category cascade publish no {@link ProductChangedEvent},
+ * so they are only counted from the next recount. A write committing while a count is
+ * being loaded may likewise be counted twice or missed until then.
+ */
+@Service
+public class CategoryCountService {
+
+    private final ProductService productService;
+
+    private volatile ConcurrentHashMap<String, AtomicLong> counts;
+
+    public CategoryCountService(ProductService productService) {
+        this.productService = productService;
+    }
+
+    public long getCount(String category) {
+        AtomicLong count = counts().get(category);
+        return count == null ? 0 : Math.max(count.get(), 0);
+    }
+
+    /**
+     * Counts of all non-empty categories, by category name.
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        counts().forEach((category, count) -> {
+            if (count.get() > 0) {
+                result.put(category, count.get());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Replaces the in-memory counts with a fresh count from the database.
+     */
+    @Scheduled(cron = "${ecommerce.categories.recount-cron:0 */10 * * * *}")
+    public synchronized void rebuild() {
+        ConcurrentHashMap<String, AtomicLong> fresh = new ConcurrentHashMap<>();
+        productService.countProductsByCategory().forEach((category, count) -> fresh.put(category, new AtomicLong(count)));
+        counts = fresh;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        ConcurrentHashMap<String, AtomicLong> current = counts;
+        if (current == null) {
+            // Not loaded yet; the first load reads the committed state
+            return;
+        }
+        Set<String> before = distinct(event.getPreviousCategories());
+        Set<String> after = event.getProduct() == null ? new HashSet<>() : distinct(event.getProduct().getCategories());
+        for (String category : before) {
+            if (!after.contains(category)) {
+                current.computeIfAbsent(category, key -> new AtomicLong()).decrementAndGet();
+            }
+        }
+        for (String category : after) {
+            if (!before.contains(category)) {
+                current.computeIfAbsent(category, key -> new AtomicLong()).incrementAndGet();
+            }
+        }
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> counts() {
+        ConcurrentHashMap<String, AtomicLong> current = counts;
+        if (current == null) {
+            synchronized (this) {
+                if (counts == null) {
+                    rebuild();
+                }
+                current = counts;
+            }
+        }
+        return current;
+    }
+
+    private static Set<String> distinct(List<String> categories) {
+        Set<String> distinct = new HashSet<>();
+        if (categories != null) {
+            for (String category : categories) {
+                if (category != null) {
+                    distinct.add(category);
+                }
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.ecommerce.service;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.ecommerce.dto.CompactProduct;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.util.LongObjectHashMap;
+import com.example.ecommerce.util.StringDictionary;
+
+/**
+ * In-memory catalog of {@link CompactProduct}s sharing one {@link StringDictionary}, so
+ * each distinct category, attribute key and attribute value is held once no matter how
+ * many products use it.
+ *
+ * Entries are filled on read and replaced with the committed copy on write. A generation
+ * counter, bumped on every write, keeps a read that loaded the product before a write
+ * from storing its stale copy afterwards; a write never replaces a newer version.
+ *
+ * The dictionary only grows, and strings no product uses any more stay in it. Once it
+ * reaches {@code maxDictionarySize} entries (or twice the entries still in use after
+ * the last rebuild, if that is more) the live products are re-encoded into a fresh
+ * dictionary and the old one is dropped.
+ */
+public class ProductReadModel {
+
+    static final int DEFAULT_MAX_DICTIONARY_SIZE = 100_000;
+
+    private final LongObjectHashMap<CompactProduct> products = new LongObjectHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final int maxDictionarySize;
+
+    private StringDictionary dictionary = new StringDictionary();
+
+    private int rebuildAt;
+
+    private long generation;
+
+    private long rebuilds;
+
+    public ProductReadModel() {
+        this(DEFAULT_MAX_DICTIONARY_SIZE);
+    }
+
+    public ProductReadModel(int maxDictionarySize) {
+        this.maxDictionarySize = Math.max(maxDictionarySize, 1);
+        this.rebuildAt = this.maxDictionarySize;
+    }
+
+    public CompactProduct get(long id) {
+        lock.readLock().lock();
+        try {
+            return products.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long generation() {
+        lock.readLock().lock();
+        try {
+            return generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Encodes {@code product} and stores it unless a write happened since
+     * {@code observedGeneration} was read. Returns the encoded product either way.
+     */
+    public CompactProduct put(Product product, long observedGeneration) {
+        lock.writeLock().lock();
+        try {
+            CompactProduct compact = CompactProduct.of(product, dictionary);
+            if (product.getId() != null && generation == observedGeneration) {
+                store(product.getId(), compact);
+            }
+            return compact;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the committed state of {@code product}, unless a later version is already
+     * held, so the next read after a write is still served from memory.
+     */
+    public void refresh(Product product) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            CompactProduct current = products.get(product.getId());
+            if (current == null || current.getVersion() <= product.getVersion()) {
+                store(product.getId(), CompactProduct.of(product, dictionary));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            products.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dictionarySize() {
+        lock.readLock().lock();
+        try {
+            return dictionary.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of times the dictionary has been rebuilt.
+     */
+    public long rebuilds() {
+        lock.readLock().lock();
+        try {
+            return rebuilds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void store(long id, CompactProduct compact) {
+        products.put(id, compact);
+        if (dictionary.size() >= rebuildAt) {
+            rebuildDictionary();
+        }
+    }
+
+    private void rebuildDictionary() {
+        StringDictionary fresh = new StringDictionary();
+        LongObjectHashMap<CompactProduct> recoded = new LongObjectHashMap<>(products.size());
+        products.forEach((id, compact) -> recoded.put(id, compact.recode(fresh)));
+        recoded.forEach(products::put);
+        dictionary = fresh;
+        rebuildAt = Math.max(maxDictionarySize, fresh.size() * 2);
+        rebuilds++;
+    }
+}
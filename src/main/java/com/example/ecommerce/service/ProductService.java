@@ -1,15 +1,28 @@
 package com.example.ecommerce.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.example.ecommerce.dto.CompactProduct;
 import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.ProductChangedEvent;
 import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.shard.ShardedProductStore;
 
 @Service
 public class ProductService {
@@ -17,35 +30,238 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Set when products are sharded; products are then read and written through it
+     * instead of {@link #productRepository}.
+     */
+    @Autowired(required = false)
+    private ShardedProductStore shardedStore;
+
+    @Value("${ecommerce.cache.queries-enabled:false}")
+    private boolean cachedQueries;
+
+    private ProductReadModel readModel = new ProductReadModel();
+
+    @Value("${ecommerce.read-model.max-dictionary-size:100000}")
+    public void setMaxDictionarySize(int maxDictionarySize) {
+        readModel = new ProductReadModel(maxDictionarySize);
+    }
+
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        if (shardedStore != null) {
+            return shardedStore.findAll();
+        }
+        return cachedQueries ? productRepository.findAllCached() : productRepository.findAll();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Product> getProductsPage(int page, int size) {
+        if (shardedStore != null) {
+            return shardedStore.findPage(page, size);
+        }
+        return productRepository.findAll(PageRequest.of(page, size)).getContent();
     }
 
+    /**
+     * The first {@code limit} products with an id above {@code afterId}, in id order and
+     * with their collections loaded, for paging through the whole catalog.
+     */
+    @Transactional(readOnly = true)
+    public List<Product> getProductsAfter(long afterId, int limit) {
+        if (shardedStore != null) {
+            return shardedStore.findAfter(afterId, limit);
+        }
+        return withCollections(productRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit)));
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Product> getProductById(Long id) {
+        if (shardedStore != null) {
+            return shardedStore.findById(id);
+        }
         return productRepository.findById(id);
     }
 
+    /**
+     * Products whose name contains {@code text}, ignoring case, ordered by name.
+     */
+    @Transactional(readOnly = true)
+    public List<Product> searchProducts(String text, int limit) {
+        if (shardedStore != null) {
+            return shardedStore.searchByName(text, limit);
+        }
+        return productRepository.findByNameContainingIgnoreCaseOrderByNameAscIdAsc(text, PageRequest.of(0, limit));
+    }
+
+    /**
+     * One page of the products in {@code category}, in id order and with their
+     * collections loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByCategory(String category, int page, int size) {
+        if (shardedStore != null) {
+            return shardedStore.findByCategory(category, page, size);
+        }
+        return withCollections(productRepository.findByCategory(category, PageRequest.of(page, size)));
+    }
+
+    /**
+     * Categories of each of the given products, fetched in bulk. Products without
+     * categories, or that do not exist, are absent from the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<String>> getCategoryMemberships(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (shardedStore != null) {
+            return shardedStore.findCategoryMemberships(ids);
+        }
+        Map<Long, List<String>> memberships = new HashMap<>();
+        for (Object[] row : productRepository.findCategoryMemberships(ids)) {
+            memberships.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return memberships;
+    }
+
+    /**
+     * Number of distinct products in each category, counted in the database.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> countProductsByCategory() {
+        if (shardedStore != null) {
+            return shardedStore.countProductsByCategory();
+        }
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : productRepository.countProductsByCategory()) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Same lookup as {@link #getProductById}, but served from the compact read model once
+     * the product has been loaded or written. Backs the product endpoints when the
+     * response cache misses, e.g. right after a write dropped the cached body.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CompactProduct> getProductView(Long id) {
+        CompactProduct cached = readModel.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = readModel.generation();
+        return getProductById(id).map(product -> readModel.put(product, generation));
+    }
+
+    public ProductReadModel getReadModel() {
+        return readModel;
+    }
+
+    @Transactional
     public Product saveProduct(Product product) {
 //        if (product.getPrice() <= 0) {
 //            throw new IllegalArgumentException("Price must be greater than 0");
 //        }
-        return productRepository.save(product);
+        Optional<Product> existing = product.getId() == null ? Optional.empty() : getProductById(product.getId());
+        List<String> previousCategories = existing.map(stored -> copyOf(stored.getCategories()))
+                .orElse(Collections.emptyList());
+        // Saving with an id replaces the stored product, whichever version the caller last saw
+        existing.ifPresent(stored -> product.setVersion(stored.getVersion()));
+        Product savedProduct = store(product);
+        if (savedProduct != null) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,
+                    savedProduct.getId(), savedProduct, previousCategories));
+        }
+        return savedProduct;
     }
 
+    @Transactional
     public Product updateProduct(Long id, Product updatedProduct) {
-        return productRepository.findById(id)
+        return updateProduct(id, updatedProduct, null);
+    }
+
+    /**
+     * Replaces the product's fields, failing with an {@link ObjectOptimisticLockingFailureException}
+     * if {@code expectedVersion} is given and the product has been changed since the caller
+     * read that version, or if another update commits first.
+     */
+    @Transactional
+    public Product updateProduct(Long id, Product updatedProduct, Long expectedVersion) {
+        return getProductById(id)
                 .map(product -> {
+                    if (expectedVersion != null && expectedVersion != product.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Product.class, id);
+                    }
+                    List<String> previousCategories = copyOf(product.getCategories());
                     product.setName(updatedProduct.getName());
                     product.setPrice(updatedProduct.getPrice());
                     product.setCategories(updatedProduct.getCategories());
                     product.setAttributes(updatedProduct.getAttributes());
-                    return productRepository.save(product);
+                    Product savedProduct = store(product);
+                    if (savedProduct != null) {
+                        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED,
+                                id, savedProduct, previousCategories));
+                    }
+                    return savedProduct;
                 }).orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
 
 
+    @Transactional
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        // Lock the product row before its collection rows, in the same order as updates, so
+        // a delete racing an update waits for it instead of deadlocking
+        Optional<Product> existing = shardedStore != null ? getProductById(id) : productRepository.findForUpdateById(id);
+        List<String> previousCategories = existing.map(stored -> copyOf(stored.getCategories()))
+                .orElse(Collections.emptyList());
+        if (shardedStore != null) {
+            shardedStore.deleteById(id);
+        } else {
+            productRepository.deleteById(id);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, id, null,
+                previousCategories));
+    }
+
+    /**
+     * Loads the categories and attributes of all {@code products} with one query per
+     * collection, instead of two lazy loads per product.
+     */
+    private List<Product> withCollections(List<Product> products) {
+        if (!products.isEmpty()) {
+            List<Long> ids = new ArrayList<>(products.size());
+            products.forEach(product -> ids.add(product.getId()));
+            productRepository.fetchCategories(ids);
+            productRepository.fetchAttributes(ids);
+        }
+        return products;
+    }
+
+    private static List<String> copyOf(List<String> categories) {
+        return categories == null ? Collections.emptyList() : new ArrayList<>(categories);
+    }
+
+    private Product store(Product product) {
+        return shardedStore != null ? shardedStore.save(product) : productRepository.save(product);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            return;
+        }
+        Product product = event.getProduct();
+        if (event.getType() != ProductChangedEvent.Type.DELETED && product != null
+                && Hibernate.isInitialized(product.getCategories()) && Hibernate.isInitialized(product.getAttributes())) {
+            readModel.refresh(product);
+        } else {
+            readModel.remove(event.getProductId());
+        }
     }
 }
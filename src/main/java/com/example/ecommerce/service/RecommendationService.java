@@ -0,0 +1,240 @@
+package com.example.ecommerce.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.ecommerce.dto.RelatedProduct;
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.util.LongIntHashMap;
+import com.example.ecommerce.util.LongObjectHashMap;
+
+/**
+ * "Customers who added X also added Y" recommendations.
+ *
+ * Keeps a product co-occurrence matrix in memory as one primitive row per product and
+ * updates it from the delta between a cart's previous and current contents on every
+ * save, so nothing is ever recomputed from the database. When the matrix grows past
+ * its entry budget, the lowest counts are pruned.
+ */
+@Service
+public class RecommendationService {
+
+    private final LongObjectHashMap<LongIntHashMap> rows = new LongObjectHashMap<>();
+
+    private final Map<Long, long[]> basketsByCart;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final long maxEntries;
+
+    private final int minCount;
+
+    private final int maxBasketSize;
+
+    private long entries;
+
+    public RecommendationService(@Value("${ecommerce.recommendations.max-entries:1000000}") long maxEntries,
+                                 @Value("${ecommerce.recommendations.min-count:2}") int minCount,
+                                 @Value("${ecommerce.recommendations.max-basket-size:100}") int maxBasketSize,
+                                 @Value("${ecommerce.recommendations.max-tracked-carts:100000}") int maxTrackedCarts) {
+        this.maxEntries = maxEntries;
+        this.minCount = Math.max(minCount, 1);
+        this.maxBasketSize = maxBasketSize;
+        this.basketsByCart = new LinkedHashMap<Long, long[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > maxTrackedCarts;
+            }
+        };
+    }
+
+    /**
+     * Applies the change in a cart's contents to the matrix. Carts without an id are
+     * treated as new on every call.
+     */
+    public void recordCart(Cart cart) {
+        if (cart == null) {
+            return;
+        }
+        long[] basket = basketOf(cart);
+        lock.writeLock().lock();
+        try {
+            long[] previous = cart.getId() == null ? null : basketsByCart.get(cart.getId());
+            if (previous != null && Arrays.equals(previous, basket)) {
+                return;
+            }
+            if (previous != null) {
+                applyPairs(previous, -1);
+            }
+            applyPairs(basket, 1);
+            if (cart.getId() != null) {
+                basketsByCart.put(cart.getId(), basket);
+            }
+            if (entries > maxEntries) {
+                prune();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} products most often added together with the given
+     * one, highest count first.
+     */
+    public List<RelatedProduct> getRelatedProducts(long productId, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        long[] topIds = new long[limit];
+        int[] topCounts = new int[limit];
+        int found;
+        lock.readLock().lock();
+        try {
+            LongIntHashMap row = rows.get(productId);
+            if (row == null) {
+                return new ArrayList<>();
+            }
+            int[] filled = {0};
+            row.forEach((other, count) -> offer(topIds, topCounts, filled, other, count));
+            found = filled[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<RelatedProduct> related = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            related.add(new RelatedProduct(topIds[i], topCounts[i]));
+        }
+        return related;
+    }
+
+    public long getEntryCount() {
+        lock.readLock().lock();
+        try {
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long[] basketOf(Cart cart) {
+        LongIntHashMap seen = new LongIntHashMap();
+        long[] ids = new long[16];
+        int n = 0;
+        for (Category category : cart.getCategories()) {
+            if (category == null || category.getProducts() == null) {
+                continue;
+            }
+            for (Product product : category.getProducts()) {
+                if (product == null || product.getId() == null || n >= maxBasketSize) {
+                    continue;
+                }
+                if (seen.addTo(product.getId(), 1) == 1) {
+                    if (n == ids.length) {
+                        ids = Arrays.copyOf(ids, n * 2);
+                    }
+                    ids[n++] = product.getId();
+                }
+            }
+        }
+        long[] basket = Arrays.copyOf(ids, n);
+        Arrays.sort(basket);
+        return basket;
+    }
+
+    private void applyPairs(long[] basket, int delta) {
+        for (int i = 0; i < basket.length; i++) {
+            for (int j = 0; j < basket.length; j++) {
+                if (i != j) {
+                    increment(basket[i], basket[j], delta);
+                }
+            }
+        }
+    }
+
+    private void increment(long from, long to, int delta) {
+        LongIntHashMap row = rows.get(from);
+        if (row == null) {
+            if (delta <= 0) {
+                return;
+            }
+            row = new LongIntHashMap();
+            rows.put(from, row);
+        }
+        int sizeBefore = row.size();
+        row.addTo(to, delta);
+        entries += row.size() - sizeBefore;
+        if (row.isEmpty()) {
+            rows.remove(from);
+        }
+    }
+
+    /**
+     * Drops low counts until the matrix is back under 90% of its budget. A histogram of
+     * the counts gives the lowest cut-off that gets there, so a matrix full of equal
+     * counts still shrinks and every row is visited only twice.
+     */
+    private void prune() {
+        long target = maxEntries * 9 / 10;
+        LongIntHashMap histogram = new LongIntHashMap();
+        rows.forEach((productId, row) -> row.forEach((other, count) -> histogram.addTo(count, 1)));
+        long[] counts = new long[histogram.size()];
+        int[] n = {0};
+        histogram.forEach((count, frequency) -> counts[n[0]++] = count);
+        Arrays.sort(counts);
+        int threshold = minCount;
+        long remaining = entries;
+        for (long count : counts) {
+            if (count >= threshold) {
+                if (remaining <= target) {
+                    break;
+                }
+                threshold = (int) count + 1;
+            }
+            remaining -= histogram.get(count);
+        }
+        int cutOff = threshold;
+        List<Long> emptied = new ArrayList<>();
+        long[] removed = {0};
+        rows.forEach((productId, row) -> {
+            removed[0] += row.removeBelow(cutOff);
+            if (row.isEmpty()) {
+                emptied.add(productId);
+            }
+        });
+        emptied.forEach(rows::remove);
+        entries -= removed[0];
+    }
+
+    private static void offer(long[] ids, int[] counts, int[] filled, long id, int count) {
+        int n = filled[0];
+        if (n == ids.length && !ranksBefore(id, count, ids[n - 1], counts[n - 1])) {
+            return;
+        }
+        int i = n == ids.length ? n - 1 : n;
+        while (i > 0 && ranksBefore(id, count, ids[i - 1], counts[i - 1])) {
+            ids[i] = ids[i - 1];
+            counts[i] = counts[i - 1];
+            i--;
+        }
+        ids[i] = id;
+        counts[i] = count;
+        if (n < ids.length) {
+            filled[0] = n + 1;
+        }
+    }
+
+    private static boolean ranksBefore(long id, int count, long otherId, int otherCount) {
+        return count > otherCount || (count == otherCount && id < otherId);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.ecommerce.service;
+
+/**
+ * Thrown when a cart lists products while products are sharded: cart categories
+ * reference products on {@code spring.datasource}, where sharded products do not live.
+ */
+public class ShardedCartProductsException extends RuntimeException {
+
+    public ShardedCartProductsException() {
+        super("Carts cannot list products while products are sharded");
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.ecommerce.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.ecommerce.dto.TrendingProduct;
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.util.CountMinSketch;
+
+/**
+ * Live "trending now" ranking of products.
+ *
+ * Every view or cart addition goes into a count-min sketch, and a bounded set of
+ * heavy-hitter candidates tracks the keys with the highest estimates. Both are halved
+ * on a fixed schedule, so the ranking reflects recent activity and memory stays
+ * constant regardless of catalog size.
+ */
+@Service
+public class TrendingService {
+
+    private final CountMinSketch sketch;
+
+    private final Map<Long, Long> candidates;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final int capacity;
+
+    private final long cartWeight;
+
+    private volatile long admissionFloor;
+
+    public TrendingService(@Value("${ecommerce.trending.sketch-width:4096}") int sketchWidth,
+                           @Value("${ecommerce.trending.sketch-depth:4}") int sketchDepth,
+                           @Value("${ecommerce.trending.capacity:200}") int capacity,
+                           @Value("${ecommerce.trending.cart-weight:3}") long cartWeight) {
+        this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        this.capacity = capacity;
+        this.cartWeight = cartWeight;
+        this.candidates = new ConcurrentHashMap<>(capacity * 2);
+    }
+
+    public void recordView(Long productId) {
+        record(productId, 1);
+    }
+
+    public void recordCartAdditions(Cart cart) {
+        if (cart == null) {
+            return;
+        }
+        for (Category category : cart.getCategories()) {
+            if (category == null || category.getProducts() == null) {
+                continue;
+            }
+            for (Product product : category.getProducts()) {
+                if (product != null) {
+                    record(product.getId(), cartWeight);
+                }
+            }
+        }
+    }
+
+    public List<TrendingProduct> getTrending(int limit) {
+        return candidates.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new TrendingProduct(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Halves all counts. Scores therefore have a half-life of one decay interval.
+     */
+    @Scheduled(fixedRateString = "${ecommerce.trending.decay-interval-ms:60000}",
+            initialDelayString = "${ecommerce.trending.decay-interval-ms:60000}")
+    public void decay() {
+        sketch.decay();
+        evictionLock.lock();
+        try {
+            candidates.replaceAll((productId, score) -> score >> 1);
+            candidates.values().removeIf(score -> score == 0);
+            admissionFloor = admissionFloor >> 1;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Forgets all activity, e.g. the synthetic views of the startup warm-up.
+     */
+    public void reset() {
+        evictionLock.lock();
+        try {
+            sketch.clear();
+            candidates.clear();
+            admissionFloor = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void record(Long productId, long weight) {
+        if (productId == null) {
+            return;
+        }
+        long estimate = sketch.add(productId, weight);
+        if (candidates.replace(productId, estimate) != null) {
+            return;
+        }
+        if (candidates.size() < capacity) {
+            candidates.putIfAbsent(productId, estimate);
+            return;
+        }
+        // Hot path stays lock-free: only a key that beats the weakest candidate
+        // tries to evict it, and it simply gives up if another thread is doing so.
+        if (estimate > admissionFloor && evictionLock.tryLock()) {
+            try {
+                evictWeakestFor(productId, estimate);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void evictWeakestFor(Long productId, long estimate) {
+        Long weakest = null;
+        long weakestScore = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> entry : candidates.entrySet()) {
+            if (entry.getValue() < weakestScore) {
+                weakest = entry.getKey();
+                weakestScore = entry.getValue();
+            }
+        }
+        if (weakest != null && weakestScore < estimate) {
+            candidates.remove(weakest);
+            candidates.put(productId, estimate);
+            long floor = Long.MAX_VALUE;
+            for (Long score : candidates.values()) {
+                floor = Math.min(floor, score);
+            }
+            admissionFloor = floor;
+        } else {
+            admissionFloor = weakestScore;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ecommerce.shard;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps product ids to shard indexes and picks the shard for new products.
+ */
+public class ShardRouter {
+
+    private final ShardingStrategy strategy;
+
+    private final long[] rangeStarts;
+
+    private final AtomicInteger nextInsert = new AtomicInteger();
+
+    /**
+     * @param rangeStarts lowest id of each shard, ascending; for {@link ShardingStrategy#HASH}
+     *                    only the length (the shard count) is used
+     */
+    public ShardRouter(ShardingStrategy strategy, long[] rangeStarts) {
+        if (rangeStarts.length == 0) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        for (int i = 1; strategy == ShardingStrategy.RANGE && i < rangeStarts.length; i++) {
+            if (rangeStarts[i] <= rangeStarts[i - 1]) {
+                throw new IllegalArgumentException("Shard range starts must be ascending");
+            }
+        }
+        this.strategy = strategy;
+        this.rangeStarts = rangeStarts.clone();
+    }
+
+    public int shardCount() {
+        return rangeStarts.length;
+    }
+
+    public ShardingStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int shardFor(long id) {
+        if (strategy == ShardingStrategy.HASH) {
+            return (int) Math.floorMod(id - 1, (long) rangeStarts.length);
+        }
+        int index = Arrays.binarySearch(rangeStarts, id);
+        return index >= 0 ? index : Math.max(-index - 2, 0);
+    }
+
+    /**
+     * Shard that should allocate the id of a new product.
+     */
+    public int shardForInsert() {
+        if (strategy == ShardingStrategy.HASH) {
+            return Math.floorMod(nextInsert.getAndIncrement(), rangeStarts.length);
+        }
+        return rangeStarts.length - 1;
+    }
+
+    /**
+     * Smallest id greater than {@code maxId} that the shard's identity column should
+     * generate next.
+     */
+    public long nextIdentity(int shard, long maxId) {
+        if (strategy == ShardingStrategy.HASH) {
+            long count = rangeStarts.length;
+            long next = Math.max(maxId + 1, shard + 1);
+            return next + Math.floorMod(shard + 1 - next, count);
+        }
+        return Math.max(maxId + 1, rangeStarts[shard]);
+    }
+
+    /**
+     * Step of the shard identity columns.
+     */
+    public int identityIncrement() {
+        return strategy == ShardingStrategy.HASH ? rangeStarts.length : 1;
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.ecommerce.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.entity.Product;
+
+/**
+ * Product storage partitioned across several databases, each with the regular product
+ * tables.
+ *
+ * Point reads and writes touch only the owning shard, in a transaction local to that
+ * shard. Listings and searches query every shard in parallel, each returning its own
+ * rows already sorted and limited, and k-way merge them; categories and attributes are
+ * then loaded only for the rows that made it into the result. Returned products are
+ * plain detached objects.
+ */
+public class ShardedProductStore implements Closeable {
+
+    private static final String SELECT_PRODUCT = "SELECT id, name, price, version FROM product";
+
+    private static final int IN_CHUNK = 500;
+
+    private static final RowMapper<Product> PRODUCT_ROW = (rs, rowNum) -> {
+        Product product = new Product();
+        product.setId(rs.getLong("id"));
+        product.setName(rs.getString("name"));
+        product.setPrice(rs.getDouble("price"));
+        product.setVersion(rs.getLong("version"));
+        return product;
+    };
+
+    private static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+
+    private static final Comparator<Product> BY_NAME = Comparator
+            .comparing(Product::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Product::getId);
+
+    private final ShardRouter router;
+
+    private final List<DataSource> dataSources;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+
+    private final List<TransactionTemplate> transactions = new ArrayList<>();
+
+    private final List<TransactionTemplate> readOnlyTransactions = new ArrayList<>();
+
+    private final ExecutorService fanOut;
+
+    private final long queryTimeoutMs;
+
+    public ShardedProductStore(ShardRouter router, List<DataSource> dataSources, int fanOutThreads, long queryTimeoutMs) {
+        if (router.shardCount() != dataSources.size()) {
+            throw new IllegalArgumentException("Router expects " + router.shardCount() + " shards but "
+                    + dataSources.size() + " data sources were given");
+        }
+        this.router = router;
+        this.dataSources = new ArrayList<>(dataSources);
+        for (DataSource dataSource : dataSources) {
+            shards.add(new JdbcTemplate(dataSource));
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            transactions.add(new TransactionTemplate(transactionManager));
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnlyTransactions.add(readOnly);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        int threads = Math.max(fanOutThreads, 1);
+        this.fanOut = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 64), runnable -> {
+                    Thread thread = new Thread(runnable, "shard-fan-out-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.queryTimeoutMs = queryTimeoutMs;
+    }
+
+    /**
+     * Points each shard's identity column past its existing rows and at the ids the
+     * router expects the shard to allocate. Run once the schema exists.
+     */
+    public void initializeIdentities() {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            JdbcTemplate jdbc = shards.get(shard);
+            Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM product", Long.class);
+            jdbc.execute("ALTER TABLE product ALTER COLUMN id RESTART WITH "
+                    + router.nextIdentity(shard, maxId == null ? 0 : maxId)
+                    + " SET INCREMENT BY " + router.identityIncrement());
+        }
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    public Optional<Product> findById(long id) {
+        int shard = router.shardFor(id);
+        return readOnlyTransactions.get(shard).execute(status -> {
+            List<Product> products = shards.get(shard).query(SELECT_PRODUCT + " WHERE id = ?", PRODUCT_ROW, id);
+            loadCollections(shard, products);
+            return products.stream().findFirst();
+        });
+    }
+
+    public List<Product> findAll() {
+        List<List<Product>> perShard = fanOut(shard -> readOnlyTransactions.get(shard).execute(status -> {
+            List<Product> products = shards.get(shard).query(SELECT_PRODUCT + " ORDER BY id", PRODUCT_ROW);
+            loadCollections(shard, products);
+            return products;
+        }));
+        return merge(perShard, BY_ID, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * One page of the catalog in id order. Every shard returns its first
+     * {@code (page + 1) * size} ids, so deep pages cost more.
+     */
+    public List<Product> findPage(int page, int size) {
+        int limit = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+        List<List<Product>> perShard = fanOut(shard ->
+                shards.get(shard).query(SELECT_PRODUCT + " ORDER BY id LIMIT ?", PRODUCT_ROW, limit));
+        return withCollections(merge(perShard, BY_ID, (long) page * size, size));
+    }
+
+    /**
+     * The first {@code limit} products with an id above {@code afterId}, in id order.
+     */
+    public List<Product> findAfter(long afterId, int limit) {
+        List<List<Product>> perShard = fanOut(shard -> shards.get(shard).query(
+                SELECT_PRODUCT + " WHERE id > ? ORDER BY id LIMIT ?", PRODUCT_ROW, afterId, limit));
+        return withCollections(merge(perShard, BY_ID, 0, limit));
+    }
+
+    /**
+     * Products whose name contains {@code text}, ignoring case, ordered by name then id.
+     */
+    public List<Product> searchByName(String text, int limit) {
+        String pattern = "%" + text.toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        List<List<Product>> perShard = fanOut(shard -> shards.get(shard).query(
+                SELECT_PRODUCT + " WHERE LOWER(name) LIKE ? ESCAPE '\\' ORDER BY name, id LIMIT ?",
+                PRODUCT_ROW, pattern, limit));
+        return withCollections(merge(perShard, BY_NAME, 0, limit));
+    }
+
+    /**
+     * One page of the products in {@code category}, in id order. A product listing the
+     * category more than once appears once.
+     */
+    public List<Product> findByCategory(String category, int page, int size) {
+        int limit = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+        List<List<Product>> perShard = fanOut(shard -> shards.get(shard).query(
+                "SELECT DISTINCT p.id, p.name, p.price, p.version FROM product_categories c JOIN product p ON p.id = c.product_id"
+                        + " WHERE c.categories = ? ORDER BY p.id LIMIT ?", PRODUCT_ROW, category, limit));
+        return withCollections(merge(perShard, BY_ID, (long) page * size, size));
+    }
+
+    /**
+     * Categories of each of the given products, querying only the shards that own them.
+     */
+    public Map<Long, List<String>> findCategoryMemberships(Collection<Long> ids) {
+        List<List<Object>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Long id : ids) {
+            byShard.get(router.shardFor(id)).add(id);
+        }
+        Map<Long, List<String>> memberships = new HashMap<>();
+        for (List<Object[]> rows : fanOut(shard -> {
+            List<Object[]> found = new ArrayList<>();
+            List<Object> shardIds = byShard.get(shard);
+            for (int from = 0; from < shardIds.size(); from += IN_CHUNK) {
+                List<Object> chunk = shardIds.subList(from, Math.min(from + IN_CHUNK, shardIds.size()));
+                found.addAll(shards.get(shard).query("SELECT product_id, categories FROM product_categories"
+                                + " WHERE product_id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")",
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)}, chunk.toArray()));
+            }
+            return found;
+        })) {
+            for (Object[] row : rows) {
+                memberships.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+        }
+        return memberships;
+    }
+
+    /**
+     * Number of distinct products in each category, summed over all shards.
+     */
+    public Map<String, Long> countProductsByCategory() {
+        Map<String, Long> counts = new HashMap<>();
+        for (List<Object[]> rows : fanOut(shard -> shards.get(shard).query(
+                "SELECT categories, COUNT(DISTINCT product_id) FROM product_categories"
+                        + " WHERE categories IS NOT NULL GROUP BY categories",
+                (rs, rowNum) -> new Object[]{rs.getString(1), rs.getLong(2)}))) {
+            for (Object[] row : rows) {
+                counts.merge((String) row[0], (Long) row[1], Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Inserts a product without an id on the shard chosen by the router, or replaces the
+     * product with the given id on the shard owning it. A replacement fails with an
+     * {@link ObjectOptimisticLockingFailureException} unless the stored product is still
+     * at the product's version. An id that no shard holds is treated like no id, as a JPA
+     * merge would: the product is inserted under a new id from the identity column.
+     */
+    public Product save(Product product) {
+        if (product.getId() == null || !replace(product)) {
+            insert(product);
+        }
+        return product;
+    }
+
+    private void insert(Product product) {
+        int shard = router.shardForInsert();
+        JdbcTemplate jdbc = shards.get(shard);
+        transactions.get(shard).executeWithoutResult(status -> {
+            KeyHolder key = new GeneratedKeyHolder();
+            jdbc.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO product (name, price) VALUES (?, ?)", new String[]{"id"});
+                statement.setString(1, product.getName());
+                statement.setDouble(2, product.getPrice());
+                return statement;
+            }, key);
+            product.setId(key.getKey().longValue());
+            product.setVersion(0);
+            insertCollections(jdbc, product);
+        });
+    }
+
+    /**
+     * @return {@code false} if no product with the product's id exists
+     */
+    private boolean replace(Product product) {
+        int shard = router.shardFor(product.getId());
+        JdbcTemplate jdbc = shards.get(shard);
+        Boolean replaced = transactions.get(shard).execute(status -> {
+            // The product row is locked before its collection rows, as JPA does
+            int updated = jdbc.update("UPDATE product SET name = ?, price = ?, version = version + 1"
+                            + " WHERE id = ? AND version = ?",
+                    product.getName(), product.getPrice(), product.getId(), product.getVersion());
+            if (updated == 0) {
+                if (jdbc.queryForList("SELECT id FROM product WHERE id = ?", Long.class, product.getId()).isEmpty()) {
+                    return false;
+                }
+                throw new ObjectOptimisticLockingFailureException(Product.class, product.getId());
+            }
+            product.setVersion(product.getVersion() + 1);
+            jdbc.update("DELETE FROM product_categories WHERE product_id = ?", product.getId());
+            jdbc.update("DELETE FROM product_attributes WHERE product_id = ?", product.getId());
+            insertCollections(jdbc, product);
+            return true;
+        });
+        return Boolean.TRUE.equals(replaced);
+    }
+
+    public boolean deleteById(long id) {
+        int shard = router.shardFor(id);
+        JdbcTemplate jdbc = shards.get(shard);
+        Integer deleted = transactions.get(shard).execute(status -> {
+            jdbc.queryForList("SELECT id FROM product WHERE id = ? FOR UPDATE", Long.class, id);
+            jdbc.update("DELETE FROM product_categories WHERE product_id = ?", id);
+            jdbc.update("DELETE FROM product_attributes WHERE product_id = ?", id);
+            return jdbc.update("DELETE FROM product WHERE id = ?", id);
+        });
+        return deleted != null && deleted > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fanOut.shutdownNow();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+
+    private List<Product> withCollections(List<Product> products) {
+        List<List<Product>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Product product : products) {
+            byShard.get(router.shardFor(product.getId())).add(product);
+        }
+        fanOut(shard -> {
+            if (!byShard.get(shard).isEmpty()) {
+                readOnlyTransactions.get(shard).executeWithoutResult(status -> loadCollections(shard, byShard.get(shard)));
+            }
+            return null;
+        });
+        return products;
+    }
+
+    /**
+     * Fills in categories and attributes with one query per collection table. Run inside
+     * a shard transaction so all queries share one connection.
+     */
+    private void loadCollections(int shard, List<Product> products) {
+        JdbcTemplate jdbc = shards.get(shard);
+        for (int from = 0; from < products.size(); from += IN_CHUNK) {
+            List<Product> chunk = products.subList(from, Math.min(from + IN_CHUNK, products.size()));
+            Map<Long, Product> byId = new LinkedHashMap<>();
+            for (Product product : chunk) {
+                product.setCategories(new ArrayList<>());
+                product.setAttributes(new LinkedHashMap<>());
+                byId.put(product.getId(), product);
+            }
+            String in = String.join(",", Collections.nCopies(byId.size(), "?"));
+            Object[] ids = byId.keySet().toArray();
+            jdbc.query("SELECT product_id, categories FROM product_categories WHERE product_id IN (" + in + ")",
+                    (ResultSet rs) -> {
+                        byId.get(rs.getLong(1)).getCategories().add(rs.getString(2));
+                    }, ids);
+            jdbc.query("SELECT product_id, attributes_key, attributes FROM product_attributes"
+                            + " WHERE product_id IN (" + in + ")",
+                    (ResultSet rs) -> {
+                        byId.get(rs.getLong(1)).getAttributes().put(rs.getString(2), rs.getString(3));
+                    }, ids);
+        }
+    }
+
+    private static void insertCollections(JdbcTemplate jdbc, Product product) {
+        List<Object[]> categories = new ArrayList<>();
+        if (product.getCategories() != null) {
+            for (String category : product.getCategories()) {
+                categories.add(new Object[]{product.getId(), category});
+            }
+        }
+        List<Object[]> attributes = new ArrayList<>();
+        if (product.getAttributes() != null) {
+            for (Map.Entry<String, String> attribute : product.getAttributes().entrySet()) {
+                attributes.add(new Object[]{product.getId(), attribute.getKey(), attribute.getValue()});
+            }
+        }
+        if (!categories.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO product_categories (product_id, categories) VALUES (?, ?)", categories);
+        }
+        if (!attributes.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO product_attributes (product_id, attributes_key, attributes) VALUES (?, ?, ?)",
+                    attributes);
+        }
+    }
+
+    /**
+     * Runs {@code query} against every shard in parallel and returns the results in
+     * shard order. A single shard is queried on the calling thread.
+     */
+    private <T> List<T> fanOut(IntFunction<T> query) {
+        List<T> results = new ArrayList<>(shards.size());
+        if (shards.size() == 1) {
+            results.add(query.apply(0));
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int index = shard;
+            futures.add(fanOut.submit(() -> query.apply(index)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryTimeoutMs);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Shard query exceeded " + queryTimeoutMs + " ms", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new DataAccessResourceFailureException("Shard query failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted waiting for shards", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * K-way merge of lists that are each sorted by {@code order}, skipping the first
+     * {@code skip} elements and returning at most {@code limit}.
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, long skip, int limit) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(sorted.size(), 1),
+                (a, b) -> order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1])));
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        long position = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<T> source = sorted.get(head[0]);
+            if (position++ >= skip) {
+                merged.add(source.get(head[1]));
+            }
+            if (++head[1] < source.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.ecommerce.shard;
+
+/**
+ * How product ids are assigned to shards.
+ */
+public enum ShardingStrategy {
+
+    /**
+     * Each shard holds a contiguous id range. New products go to the last, open-ended
+     * range, so capacity is added by appending a shard with a higher range start.
+     */
+    RANGE,
+
+    /**
+     * Ids are spread by {@code (id - 1) mod shardCount}. Each shard's identity column
+     * steps by the shard count from its own offset, so shards allocate ids
+     * independently. Changing the shard count requires moving data.
+     */
+    HASH
+}
@@ -0,0 +1,194 @@
+package com.example.ecommerce.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.example.ecommerce.entity.Product;
+
+/**
+ * Binary catalog snapshot format.
+ *
+ * <pre>
+ * header  : magic "ECAT" | int version | long createdAtMillis | int productCount
+ * product : long id | double price | str name | int n, n * str category | int m, m * (str key, str value)
+ * trailer : long (CRC32 of header &lt;&lt; 32) | CRC32 of products
+ * str     : int byteLength (-1 for null) | UTF-8 bytes
+ * </pre>
+ *
+ * Files are written to a temporary sibling and atomically renamed, and read back
+ * through a read-only memory mapping.
+ */
+public final class CatalogSnapshotFile {
+
+    static final int MAGIC = 0x45434154;
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    private CatalogSnapshotFile() {
+    }
+
+    /**
+     * Writes all products produced by {@code source} to {@code target}.
+     *
+     * @return the number of products written
+     */
+    public static int write(Path target, Iterable<List<Product>> source) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        int count = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_BYTES);
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+                for (List<Product> chunk : source) {
+                    for (Product product : chunk) {
+                        writeProduct(out, product);
+                        count++;
+                    }
+                }
+                out.flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(count);
+                header.flip();
+                ByteBuffer trailer = ByteBuffer.allocate(8).putLong(crcWithHeader(header, crc));
+                trailer.flip();
+                channel.write(trailer, channel.position());
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps {@code source}, verifies its version and checksum, and decodes every product.
+     *
+     * @throws IOException if the file is unreadable, of another version or corrupt
+     */
+    public static List<Product> read(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 8) {
+                throw new IOException("Snapshot " + source + " is truncated");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + source + " is larger than a single mapping");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Snapshot " + source + " has an unknown format");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Snapshot " + source + " has version " + buffer.getInt(4)
+                        + ", expected " + VERSION);
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer body = buffer.duplicate();
+            body.position(HEADER_BYTES).limit((int) size - 8);
+            crc.update(body);
+            ByteBuffer header = buffer.duplicate();
+            header.position(0).limit(HEADER_BYTES);
+            if (crcWithHeader(header, crc) != buffer.getLong((int) size - 8)) {
+                throw new IOException("Snapshot " + source + " failed its checksum");
+            }
+            int count = buffer.getInt(16);
+            buffer.position(HEADER_BYTES);
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                products.add(readProduct(buffer));
+            }
+            return products;
+        }
+    }
+
+    /**
+     * The products are checksummed as they stream out, before the header is known, so
+     * the header gets its own CRC in the upper half of the trailer.
+     */
+    private static long crcWithHeader(ByteBuffer header, CRC32 bodyCrc) {
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header.duplicate());
+        return (headerCrc.getValue() << 32) | bodyCrc.getValue();
+    }
+
+    private static void writeProduct(DataOutputStream out, Product product) throws IOException {
+        out.writeLong(product.getId());
+        out.writeDouble(product.getPrice());
+        writeString(out, product.getName());
+        List<String> categories = product.getCategories() == null ? new ArrayList<>() : product.getCategories();
+        out.writeInt(categories.size());
+        for (String category : categories) {
+            writeString(out, category);
+        }
+        Map<String, String> attributes = product.getAttributes() == null ? new HashMap<>() : product.getAttributes();
+        out.writeInt(attributes.size());
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            writeString(out, attribute.getKey());
+            writeString(out, attribute.getValue());
+        }
+    }
+
+    private static Product readProduct(ByteBuffer in) {
+        Product product = new Product();
+        product.setId(in.getLong());
+        product.setPrice(in.getDouble());
+        product.setName(readString(in));
+        int categoryCount = in.getInt();
+        List<String> categories = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(readString(in));
+        }
+        product.setCategories(categories);
+        int attributeCount = in.getInt();
+        Map<String, String> attributes = new HashMap<>(attributeCount * 2);
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put(readString(in), readString(in));
+        }
+        product.setAttributes(attributes);
+        return product;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.ecommerce.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.web.ProductResponseCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Writes the catalog to a compact binary snapshot and uses it to warm a fresh node.
+ *
+ * On startup, before the application reports itself ready, the snapshot is mapped and
+ * verified. If the database has no products yet (as with {@code jdbc:h2:mem}) it is
+ * restored from the snapshot; the product responses are then pre-encoded into
+ * {@link ProductResponseCache}. The snapshot is rewritten on shutdown and, optionally,
+ * on {@code ecommerce.snapshot.cron}.
+ *
+ * Warmed responses are trusted until the next product write, so writes made by other
+ * nodes while this one was down are not seen until then.
+ */
+@Service
+@Order(0)
+public class CatalogSnapshotService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private static final int CHUNK_SIZE = 1_000;
+
+    private final ProductRepository productRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final TransactionTemplate writeTransaction;
+
+    private final ProductResponseCache responseCache;
+
+    private final Timer loadTimer;
+
+    private final Timer writeTimer;
+
+    private final boolean enabled;
+
+    private final Path path;
+
+    public CatalogSnapshotService(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ProductResponseCache responseCache, MeterRegistry meterRegistry,
+                                  @Value("${ecommerce.snapshot.enabled:false}") boolean enabled,
+                                  @Value("${ecommerce.snapshot.path:data/catalog.snapshot}") String path) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.responseCache = responseCache;
+        this.loadTimer = meterRegistry.timer("catalog.snapshot.load");
+        this.writeTimer = meterRegistry.timer("catalog.snapshot.write");
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        if (!Files.exists(path)) {
+            log.info("No catalog snapshot at {}, starting cold", path);
+            return;
+        }
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unusable catalog snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the snapshot and, if the database is empty, restores it and warms the
+     * response cache with it. A database that already has products is authoritative,
+     * so a possibly stale snapshot is then not put in the cache.
+     *
+     * @return the number of products in the snapshot
+     */
+    public int load() throws IOException {
+        long start = System.nanoTime();
+        List<Product> products = CatalogSnapshotFile.read(path);
+        long mapped = System.nanoTime();
+        boolean restored = restoreIfEmpty(products);
+        long restoredAt = System.nanoTime();
+        if (restored) {
+            products.forEach(product -> responseCache.putProduct(product.getId(), product));
+        }
+        long end = System.nanoTime();
+        loadTimer.record(end - start, TimeUnit.NANOSECONDS);
+        log.info("Loaded {} products from catalog snapshot in {} ms (read {} ms, restore {} ms, warm {} ms)",
+                products.size(), millis(end - start), millis(mapped - start),
+                restored ? millis(restoredAt - mapped) : 0, restored ? millis(end - restoredAt) : 0);
+        return products.size();
+    }
+
+    /**
+     * Writes the current catalog to the snapshot file, streaming it in chunks.
+     *
+     * @return the number of products written
+     */
+    public int write() throws IOException {
+        long start = System.nanoTime();
+        int count = CatalogSnapshotFile.write(path, this::chunks);
+        writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Wrote {} products to catalog snapshot {} in {} ms", count, path, millis(System.nanoTime() - start));
+        return count;
+    }
+
+    @Scheduled(cron = "${ecommerce.snapshot.cron:-}")
+    public void writePeriodically() {
+        if (enabled) {
+            writeQuietly();
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void writeOnShutdown() {
+        if (enabled) {
+            writeQuietly();
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write catalog snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    private boolean restoreIfEmpty(List<Product> products) {
+        if (products.isEmpty() || productRepository.count() > 0) {
+            return false;
+        }
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO product (id, name, price) VALUES (?, ?, ?)", products, CHUNK_SIZE,
+                    (statement, product) -> {
+                        statement.setLong(1, product.getId());
+                        statement.setString(2, product.getName());
+                        statement.setDouble(3, product.getPrice());
+                    });
+            List<Object[]> categories = new ArrayList<>();
+            List<Object[]> attributes = new ArrayList<>();
+            for (Product product : products) {
+                for (String category : product.getCategories()) {
+                    categories.add(new Object[]{product.getId(), category});
+                }
+                for (Map.Entry<String, String> attribute : product.getAttributes().entrySet()) {
+                    attributes.add(new Object[]{product.getId(), attribute.getKey(), attribute.getValue()});
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO product_categories (product_id, categories) VALUES (?, ?)",
+                    categories);
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO product_attributes (product_id, attributes_key, attributes) VALUES (?, ?, ?)",
+                    attributes);
+            long nextId = products.stream().mapToLong(Product::getId).max().orElse(0) + 1;
+            jdbcTemplate.execute("ALTER TABLE product ALTER COLUMN id RESTART WITH " + nextId);
+        });
+        return true;
+    }
+
+    /**
+     * Pages through the catalog by id, each page in its own short read-only transaction
+     * so a large snapshot never holds one connection for long.
+     */
+    private Iterator<List<Product>> chunks() {
+        return new Iterator<List<Product>>() {
+
+            private int page;
+
+            private List<Product> next = fetch(0);
+
+            @Override
+            public boolean hasNext() {
+                return !next.isEmpty();
+            }
+
+            @Override
+            public List<Product> next() {
+                if (next.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                List<Product> current = next;
+                next = current.size() < CHUNK_SIZE ? new ArrayList<>() : fetch(++page);
+                return current;
+            }
+        };
+    }
+
+    private List<Product> fetch(int page) {
+        return readOnlyTransaction.execute(status -> {
+            Page<Product> products = productRepository.findAll(PageRequest.of(page, CHUNK_SIZE, Sort.by("id")));
+            products.forEach(product -> {
+                product.getCategories().size();
+                product.getAttributes().size();
+            });
+            return products.getContent();
+        });
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
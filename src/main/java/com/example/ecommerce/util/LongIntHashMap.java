@@ -0,0 +1,214 @@
+package com.example.ecommerce.util;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to {@code int}
+ * values. Avoids the boxing and per-entry objects of {@code HashMap<Long, Integer>}.
+ * Not thread-safe.
+ */
+public class LongIntHashMap {
+
+    public interface Visitor {
+        void visit(long key, int value);
+    }
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean hasZeroKey;
+    private int zeroValue;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(8);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : 0;
+        }
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                return 0;
+            }
+            if (k == key) {
+                return values[i];
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value stored for {@code key} (missing keys count
+     * as zero). Entries that drop to zero or below are removed.
+     *
+     * @return the new value
+     */
+    public int addTo(long key, int delta) {
+        if (key == EMPTY) {
+            int updated = (hasZeroKey ? zeroValue : 0) + delta;
+            if (updated > 0) {
+                if (!hasZeroKey) {
+                    size++;
+                }
+                hasZeroKey = true;
+                zeroValue = updated;
+            } else if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = 0;
+                size--;
+            }
+            return Math.max(updated, 0);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        for (; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                break;
+            }
+            if (k == key) {
+                int updated = values[i] + delta;
+                if (updated > 0) {
+                    values[i] = updated;
+                } else {
+                    removeAt(i);
+                }
+                return Math.max(updated, 0);
+            }
+        }
+        if (delta <= 0) {
+            return 0;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Removes every entry whose value is below {@code minValue}. The table is only
+     * rebuilt if something is removed.
+     *
+     * @return the number of removed entries
+     */
+    public int removeBelow(int minValue) {
+        int doomed = hasZeroKey && zeroValue < minValue ? 1 : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && values[i] < minValue) {
+                doomed++;
+            }
+        }
+        if (doomed == 0) {
+            return 0;
+        }
+        int before = size;
+        if (hasZeroKey && zeroValue < minValue) {
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int zeroKeyed = hasZeroKey ? 1 : 0;
+        allocate(tableSizeFor(Math.max(before - doomed - zeroKeyed, 1)));
+        size = zeroKeyed;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldValues[i] >= minValue) {
+                insertFresh(oldKeys[i], oldValues[i]);
+            }
+        }
+        return before - size;
+    }
+
+    public void forEach(Visitor visitor) {
+        if (hasZeroKey) {
+            visitor.visit(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        // Backward-shift deletion keeps probe chains intact without tombstones.
+        int gap = slot;
+        for (int i = (slot + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = hasZeroKey ? 1 : 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insertFresh(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void insertFresh(long key, int value) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        resizeAt = Math.max(1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> sb.append(sb.length() > 1 ? ", " : "").append(k).append('=').append(v));
+        return sb.append('}').toString();
+    }
+}
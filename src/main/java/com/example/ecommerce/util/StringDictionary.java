@@ -0,0 +1,54 @@
+package com.example.ecommerce.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only dictionary assigning each distinct string a dense {@code int} code, so
+ * repeated values can be stored once and referenced by code. {@code null} is encoded as
+ * {@link #NULL}. Codes are never reused or reclaimed, so a dictionary fed from changing
+ * data has to be replaced from time to time; see {@code ProductReadModel}. Thread-safe;
+ * lookups of known strings and all decodes are lock-free.
+ */
+public class StringDictionary {
+
+    public static final int NULL = -1;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private volatile String[] strings = new String[64];
+
+    private int size;
+
+    public int encode(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = strings;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size << 1);
+            }
+            current[size] = value;
+            strings = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    public String decode(int code) {
+        return code == NULL ? null : strings[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.ecommerce.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.CategoryCountService;
+import com.example.ecommerce.service.ProductService;
+
+/**
+ * Admin-triggered background job that validates the whole catalog and, unless asked for
+ * a dry run, writes the fixable corrections back.
+ *
+ * The catalog is paged through by id in short read-only transactions. Each chunk is
+ * validated on a small fork/join pool while the job thread fetches the next one, so the
+ * job holds at most one connection at a time. Fixes are written in batches of
+ * {@code ecommerce.validation.batch-size} products per transaction through
+ * {@link ProductService#updateProduct(Long, Product, Long)}. Each fix is conditional on
+ * the version that was validated, so online writes are never overwritten, and the usual
+ * product change events keep the read model, response cache and journal in step. A batch
+ * that loses a race to an online write is retried one product at a time. Category counts
+ * are recounted once the run completes.
+ */
+@Service
+public class CatalogValidationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogValidationJob.class);
+
+    /** Products validated by one fork/join leaf task. */
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final ProductService productService;
+
+    private final CategoryCountService categoryCountService;
+
+    private final CartService cartService;
+
+    private final TransactionTemplate writeTransaction;
+
+    private final ForkJoinPool validationPool;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-validation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int chunkSize;
+
+    private final int batchSize;
+
+    private final long pauseMillis;
+
+    private final int maxReportedIssues;
+
+    private final AtomicReference<ValidationRun> current = new AtomicReference<>();
+
+    public CatalogValidationJob(ProductService productService, CategoryCountService categoryCountService,
+                                CartService cartService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${ecommerce.validation.parallelism:2}") int parallelism,
+                                @Value("${ecommerce.validation.chunk-size:500}") int chunkSize,
+                                @Value("${ecommerce.validation.batch-size:100}") int batchSize,
+                                @Value("${ecommerce.validation.pause-ms:10}") long pauseMillis,
+                                @Value("${ecommerce.validation.max-reported-issues:1000}") int maxReportedIssues) {
+        this.productService = productService;
+        this.categoryCountService = categoryCountService;
+        this.cartService = cartService;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.validationPool = new ForkJoinPool(Math.max(parallelism, 1));
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.batchSize = Math.max(batchSize, 1);
+        this.pauseMillis = pauseMillis;
+        this.maxReportedIssues = maxReportedIssues;
+    }
+
+    /**
+     * Starts a run in the background.
+     *
+     * @param fix whether to write fixes back, or only report
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public synchronized ValidationRun start(boolean fix) {
+        ValidationRun previous = current.get();
+        if (previous != null && previous.getState() == ValidationRun.State.RUNNING) {
+            throw new IllegalStateException("A catalog validation run is already in progress");
+        }
+        ValidationRun run = new ValidationRun(fix, maxReportedIssues);
+        current.set(run);
+        runner.execute(() -> execute(run));
+        return run;
+    }
+
+    /**
+     * The run in progress, or the last one to finish.
+     */
+    public Optional<ValidationRun> getCurrent() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * Asks the run in progress to stop after the chunk it is working on.
+     *
+     * @return whether a run was in progress
+     */
+    public boolean cancel() {
+        ValidationRun run = current.get();
+        if (run == null || run.getState() != ValidationRun.State.RUNNING) {
+            return false;
+        }
+        run.cancel();
+        return true;
+    }
+
+    @PreDestroy
+    public void close() {
+        cancel();
+        runner.shutdownNow();
+        validationPool.shutdownNow();
+    }
+
+    private void execute(ValidationRun run) {
+        try {
+            ProductValidator validator = new ProductValidator(productService.countProductsByCategory(),
+                    cartService.getCategoryNames());
+            List<Product> chunk = productService.getProductsAfter(0, chunkSize);
+            while (!chunk.isEmpty() && !run.isCancelRequested()) {
+                ForkJoinTask<List<ValidationResult>> validation =
+                        validationPool.submit(new ValidateTask(validator, chunk, 0, chunk.size()));
+                long lastId = chunk.get(chunk.size() - 1).getId();
+                List<Product> next = chunk.size() < chunkSize ? Collections.emptyList()
+                        : productService.getProductsAfter(lastId, chunkSize);
+                List<ValidationResult> invalid = validation.join();
+                run.recordChunk(chunk.size(), invalid, lastId);
+                if (run.isFix()) {
+                    writeFixes(run, invalid);
+                }
+                chunk = next;
+                if (pauseMillis > 0 && !chunk.isEmpty()) {
+                    TimeUnit.MILLISECONDS.sleep(pauseMillis);
+                }
+            }
+            if (run.isFix() && !run.isCancelRequested()) {
+                categoryCountService.rebuild();
+                run.recordRebuilt("category-counts");
+            }
+            run.finish(run.isCancelRequested() ? ValidationRun.State.CANCELLED : ValidationRun.State.COMPLETED, null);
+            log.info("Catalog validation {}: {} scanned, {} fixed, {} unfixable, {} skipped, {} failed in {} ms",
+                    run.getState(), run.getScanned(), run.getFixed(), run.getUnfixable(), run.getSkipped(),
+                    run.getFailed(), run.getElapsedMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.finish(ValidationRun.State.CANCELLED, null);
+        } catch (RuntimeException e) {
+            log.warn("Catalog validation failed after {} products", run.getScanned(), e);
+            run.finish(ValidationRun.State.FAILED, e.toString());
+        }
+    }
+
+    private void writeFixes(ValidationRun run, List<ValidationResult> invalid) {
+        List<ValidationResult> fixes = new ArrayList<>();
+        for (ValidationResult result : invalid) {
+            if (result.getFixed() != null) {
+                fixes.add(result);
+            }
+        }
+        for (int from = 0; from < fixes.size(); from += batchSize) {
+            List<ValidationResult> batch = fixes.subList(from, Math.min(from + batchSize, fixes.size()));
+            try {
+                Integer applied = writeTransaction.execute(status -> {
+                    int count = 0;
+                    for (ValidationResult fix : batch) {
+                        if (apply(fix)) {
+                            count++;
+                        }
+                    }
+                    return count;
+                });
+                run.recordFixed(applied);
+                run.recordSkipped(batch.size() - applied);
+            } catch (DataAccessException | TransactionException e) {
+                // An online write won a race with the batch; retry one by one so only that product is skipped
+                for (ValidationResult fix : batch) {
+                    writeOne(run, fix);
+                }
+            }
+        }
+    }
+
+    private void writeOne(ValidationRun run, ValidationResult fix) {
+        try {
+            if (Boolean.TRUE.equals(writeTransaction.execute(status -> apply(fix)))) {
+                run.recordFixed(1);
+            } else {
+                run.recordSkipped(1);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            run.recordSkipped(1);
+        } catch (DataAccessException | TransactionException e) {
+            run.recordFailed(fix, e);
+        }
+    }
+
+    /**
+     * Writes one fix if the product is still at the validated version.
+     */
+    private boolean apply(ValidationResult fix) {
+        Optional<Product> stored = productService.getProductById(fix.getProductId());
+        if (stored.isEmpty() || stored.get().getVersion() != fix.getVersion()) {
+            return false;
+        }
+        productService.updateProduct(fix.getProductId(), fix.getFixed(), fix.getVersion());
+        return true;
+    }
+
+    /**
+     * Validates a range of a chunk, splitting it in halves down to {@value #SPLIT_THRESHOLD}
+     * products; returns only the products with problems.
+     */
+    private static class ValidateTask extends RecursiveTask<List<ValidationResult>> {
+
+        private final ProductValidator validator;
+
+        private final List<Product> products;
+
+        private final int from;
+
+        private final int to;
+
+        ValidateTask(ProductValidator validator, List<Product> products, int from, int to) {
+            this.validator = validator;
+            this.products = products;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ValidationResult> compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                List<ValidationResult> invalid = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    ValidationResult result = validator.validate(products.get(i));
+                    if (!result.isValid()) {
+                        invalid.add(result);
+                    }
+                }
+                return invalid;
+            }
+            int middle = (from + to) >>> 1;
+            ValidateTask left = new ValidateTask(validator, products, from, middle);
+            left.fork();
+            List<ValidationResult> right = new ValidateTask(validator, products, middle, to).compute();
+            List<ValidationResult> invalid = new ArrayList<>(left.join());
+            invalid.addAll(right);
+            return invalid;
+        }
+    }
+}
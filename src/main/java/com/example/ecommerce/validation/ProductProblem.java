@@ -0,0 +1,30 @@
+package com.example.ecommerce.validation;
+
+/**
+ * A way a product can break the catalog rules. Fixable problems have one obvious
+ * correction that the validation job applies; the others need a person to decide.
+ */
+public enum ProductProblem {
+
+    EMPTY_NAME(false),
+    NON_POSITIVE_PRICE(false),
+    NAME_WHITESPACE(true),
+    BLANK_CATEGORY(true),
+    /** A category spelled differently (case or whitespace) from the catalog's usual spelling. */
+    CATEGORY_VARIANT(true),
+    DUPLICATE_CATEGORY(true),
+    /** A category that no {@code Category} in the catalog is named after, so nothing owns it. */
+    ORPHANED_CATEGORY(false),
+    BLANK_ATTRIBUTE(true),
+    ATTRIBUTE_WHITESPACE(true);
+
+    private final boolean fixable;
+
+    ProductProblem(boolean fixable) {
+        this.fixable = fixable;
+    }
+
+    public boolean isFixable() {
+        return fixable;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.ecommerce.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.ecommerce.entity.Product;
+
+/**
+ * Checks products against the catalog rules and builds normalized copies. Stateless once
+ * constructed, so one instance is shared by all validation threads.
+ *
+ * Categories are plain strings, so "Lighting", "lighting" and "Lighting " are three
+ * categories that each hold part of the products. Every spelling is mapped to the one
+ * most products already use.
+ *
+ * A category that matches the name of no {@code Category} (in any spelling) is reported
+ * as orphaned and left for a person to map or drop. Without any categories to match
+ * against, for example on a catalog with no carts yet, the check is skipped.
+ */
+public class ProductValidator {
+
+    private final Map<String, String> canonicalCategories;
+
+    /** Lower-cased, whitespace-collapsed names of the categories that exist. */
+    private final Set<String> ownedCategories;
+
+    /**
+     * @param categoryCounts number of products in each category, by category as stored
+     */
+    public ProductValidator(Map<String, Long> categoryCounts) {
+        this(categoryCounts, Collections.emptySet());
+    }
+
+    /**
+     * @param categoryCounts number of products in each category, by category as stored
+     * @param categoryNames names of the categories that exist; product categories that
+     *                      match none of them are orphaned
+     */
+    public ProductValidator(Map<String, Long> categoryCounts, Collection<String> categoryNames) {
+        Map<String, String> canonical = new HashMap<>();
+        Map<String, Long> canonicalCounts = new HashMap<>();
+        categoryCounts.forEach((category, count) -> {
+            if (category == null || category.isBlank()) {
+                return;
+            }
+            String spelling = collapseWhitespace(category);
+            String key = key(spelling);
+            String current = canonical.get(key);
+            long currentCount = canonicalCounts.getOrDefault(key, 0L);
+            if (current == null || count > currentCount || (count == currentCount && spelling.compareTo(current) < 0)) {
+                canonical.put(key, spelling);
+                canonicalCounts.put(key, count);
+            }
+        });
+        this.canonicalCategories = canonical;
+        Set<String> owned = new HashSet<>();
+        for (String categoryName : categoryNames) {
+            if (categoryName != null && !categoryName.isBlank()) {
+                owned.add(key(categoryName));
+            }
+        }
+        this.ownedCategories = owned;
+    }
+
+    public ValidationResult validate(Product product) {
+        Set<ProductProblem> problems = EnumSet.noneOf(ProductProblem.class);
+
+        String name = product.getName();
+        if (name == null || name.isBlank()) {
+            problems.add(ProductProblem.EMPTY_NAME);
+        } else if (!collapseWhitespace(name).equals(name)) {
+            problems.add(ProductProblem.NAME_WHITESPACE);
+            name = collapseWhitespace(name);
+        }
+
+        if (!(product.getPrice() > 0) || Double.isInfinite(product.getPrice())) {
+            problems.add(ProductProblem.NON_POSITIVE_PRICE);
+        }
+
+        Set<String> categories = new LinkedHashSet<>();
+        if (product.getCategories() != null) {
+            for (String category : product.getCategories()) {
+                if (category == null || category.isBlank()) {
+                    problems.add(ProductProblem.BLANK_CATEGORY);
+                    continue;
+                }
+                String canonical = canonical(category);
+                if (!canonical.equals(category)) {
+                    problems.add(ProductProblem.CATEGORY_VARIANT);
+                }
+                if (!categories.add(canonical)) {
+                    problems.add(ProductProblem.DUPLICATE_CATEGORY);
+                }
+                if (!ownedCategories.isEmpty() && !ownedCategories.contains(key(canonical))) {
+                    problems.add(ProductProblem.ORPHANED_CATEGORY);
+                }
+            }
+        }
+
+        Map<String, String> attributes = new LinkedHashMap<>();
+        if (product.getAttributes() != null) {
+            for (Map.Entry<String, String> attribute : product.getAttributes().entrySet()) {
+                String key = attribute.getKey();
+                String value = attribute.getValue();
+                if (key == null || key.isBlank() || value == null) {
+                    problems.add(ProductProblem.BLANK_ATTRIBUTE);
+                    continue;
+                }
+                if (!key.strip().equals(key) || !value.strip().equals(value)) {
+                    problems.add(ProductProblem.ATTRIBUTE_WHITESPACE);
+                }
+                attributes.putIfAbsent(key.strip(), value.strip());
+            }
+        }
+
+        Product fixed = null;
+        if (problems.stream().anyMatch(ProductProblem::isFixable)) {
+            fixed = new Product();
+            fixed.setId(product.getId());
+            fixed.setName(name);
+            fixed.setPrice(product.getPrice());
+            fixed.setCategories(new ArrayList<>(categories));
+            fixed.setAttributes(new HashMap<>(attributes));
+            fixed.setVersion(product.getVersion());
+        }
+        return new ValidationResult(product.getId(), product.getVersion(), problems, fixed);
+    }
+
+    private String canonical(String category) {
+        String spelling = collapseWhitespace(category);
+        return canonicalCategories.getOrDefault(key(spelling), spelling);
+    }
+
+    private static String key(String category) {
+        return collapseWhitespace(category).toLowerCase(Locale.ROOT);
+    }
+
+    private static String collapseWhitespace(String value) {
+        return value.strip().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ecommerce.validation;
+
+import java.util.Set;
+
+import com.example.ecommerce.entity.Product;
+
+/**
+ * Outcome of validating one product: its problems and, if any of them are fixable, the
+ * corrected product to write back in place of the version that was validated.
+ */
+public class ValidationResult {
+
+    private final long productId;
+
+    private final long version;
+
+    private final Set<ProductProblem> problems;
+
+    private final Product fixed;
+
+    public ValidationResult(long productId, long version, Set<ProductProblem> problems, Product fixed) {
+        this.productId = productId;
+        this.version = version;
+        this.problems = problems;
+        this.fixed = fixed;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Set<ProductProblem> getProblems() {
+        return problems;
+    }
+
+    public boolean isValid() {
+        return problems.isEmpty();
+    }
+
+    /**
+     * Whether some problems remain after the fix, so the product still needs attention.
+     */
+    public boolean isUnfixable() {
+        return problems.stream().anyMatch(problem -> !problem.isFixable());
+    }
+
+    public Product getFixed() {
+        return fixed;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.ecommerce.validation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and results of one validation run, updated by the job thread and read by the
+ * admin endpoints while it runs.
+ */
+public class ValidationRun {
+
+    public enum State {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    /** A product that still breaks the rules after the run, or whose fix could not be written. */
+    public static class Issue {
+
+        private final long productId;
+
+        private final List<ProductProblem> problems;
+
+        private final String error;
+
+        Issue(long productId, List<ProductProblem> problems, String error) {
+            this.productId = productId;
+            this.problems = problems;
+            this.error = error;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public List<ProductProblem> getProblems() {
+            return problems;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final boolean fix;
+
+    private final int maxIssues;
+
+    private final Instant startedAt = Instant.now();
+
+    private volatile Instant finishedAt;
+
+    private volatile State state = State.RUNNING;
+
+    private volatile boolean cancelRequested;
+
+    private volatile String failure;
+
+    private volatile long lastProductId;
+
+    private final AtomicLong scanned = new AtomicLong();
+
+    private final AtomicLong valid = new AtomicLong();
+
+    private final AtomicLong fixed = new AtomicLong();
+
+    private final AtomicLong unfixable = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final Map<ProductProblem, AtomicLong> problemCounts = new ConcurrentHashMap<>();
+
+    private final List<Issue> issues = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<String> rebuilt = Collections.synchronizedList(new ArrayList<>());
+
+    ValidationRun(boolean fix, int maxIssues) {
+        this.fix = fix;
+        this.maxIssues = maxIssues;
+    }
+
+    void recordChunk(int size, List<ValidationResult> invalid, long lastId) {
+        scanned.addAndGet(size);
+        valid.addAndGet(size - invalid.size());
+        for (ValidationResult result : invalid) {
+            result.getProblems().forEach(problem -> problemCounts.computeIfAbsent(problem, key -> new AtomicLong())
+                    .incrementAndGet());
+            if (result.isUnfixable()) {
+                unfixable.incrementAndGet();
+                addIssue(new Issue(result.getProductId(), new ArrayList<>(result.getProblems()), null));
+            }
+        }
+        lastProductId = lastId;
+    }
+
+    void recordFixed(long count) {
+        fixed.addAndGet(count);
+    }
+
+    void recordSkipped(long count) {
+        skipped.addAndGet(count);
+    }
+
+    void recordFailed(ValidationResult result, Exception e) {
+        failed.incrementAndGet();
+        addIssue(new Issue(result.getProductId(), new ArrayList<>(result.getProblems()), e.toString()));
+    }
+
+    void recordRebuilt(String index) {
+        rebuilt.add(index);
+    }
+
+    void cancel() {
+        cancelRequested = true;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    void finish(State finalState, String failure) {
+        this.failure = failure;
+        this.finishedAt = Instant.now();
+        this.state = finalState;
+    }
+
+    private void addIssue(Issue issue) {
+        synchronized (issues) {
+            if (issues.size() < maxIssues) {
+                issues.add(issue);
+            }
+        }
+    }
+
+    public boolean isFix() {
+        return fix;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getElapsedMillis() {
+        Instant end = finishedAt == null ? Instant.now() : finishedAt;
+        return Duration.between(startedAt, end).toMillis();
+    }
+
+    public double getProductsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : Math.round(scanned.get() * 10_000.0 / elapsed) / 10.0;
+    }
+
+    public long getLastProductId() {
+        return lastProductId;
+    }
+
+    public long getScanned() {
+        return scanned.get();
+    }
+
+    public long getValid() {
+        return valid.get();
+    }
+
+    public long getFixed() {
+        return fixed.get();
+    }
+
+    /** Products with problems that need a person, such as a missing name or price. */
+    public long getUnfixable() {
+        return unfixable.get();
+    }
+
+    /** Fixes not written because the product changed after it was validated; the next run revisits them. */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public Map<ProductProblem, Long> getProblemCounts() {
+        Map<ProductProblem, Long> counts = new TreeMap<>();
+        problemCounts.forEach((problem, count) -> counts.put(problem, count.get()));
+        return counts;
+    }
+
+    public int getIssuesReported() {
+        return issues.size();
+    }
+
+    public List<String> getRebuilt() {
+        synchronized (rebuilt) {
+            return new ArrayList<>(rebuilt);
+        }
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public List<Issue> getIssues(int limit) {
+        synchronized (issues) {
+            return new ArrayList<>(issues.subList(0, Math.min(limit, issues.size())));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ecommerce.warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times {@code /api} requests during the first {@code ecommerce.warmup.measure-window-ms}
+ * after the application became ready, as {@code http.server.first-minute} tagged with
+ * the {@link StartupWarmup.Outcome}. Comparing nodes started with and without
+ * {@code ecommerce.warmup.enabled} shows what the warm-up buys. Warm-up traffic itself
+ * is sent before readiness and is not counted. Async requests are recorded when they
+ * complete, time out or fail, whichever comes first, so the slowest ones are not missed.
+ */
+@Component
+public class FirstMinuteLatencyFilter extends OncePerRequestFilter {
+
+    private final StartupWarmup startupWarmup;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long windowNanos;
+
+    private volatile Timer timer;
+
+    private volatile long readyAt;
+
+    public FirstMinuteLatencyFilter(StartupWarmup startupWarmup, MeterRegistry meterRegistry,
+                                    @Value("${ecommerce.warmup.measure-window-ms:60000}") long windowMillis) {
+        this.startupWarmup = startupWarmup;
+        this.meterRegistry = meterRegistry;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWindow() {
+        timer = Timer.builder("http.server.first-minute")
+                .description("Latency of API requests right after the node became ready")
+                .tag("warmup", startupWarmup.getOutcome().tag())
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        readyAt = System.nanoTime();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Timer current = timer;
+        long start = System.nanoTime();
+        if (current == null || start - readyAt > windowNanos) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                AtomicBoolean recorded = new AtomicBoolean();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        record();
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        record();
+                    }
+
+                    private void record() {
+                        if (recorded.compareAndSet(false, true)) {
+                            current.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                current.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.ecommerce.warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.service.TrendingService;
+import com.example.ecommerce.web.RateLimitInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Warms a freshly started node before it reports itself ready.
+ *
+ * Spring Boot only publishes {@code ReadinessState.ACCEPTING_TRAFFIC} once every
+ * {@link ApplicationRunner} has returned, and this one runs last, after the catalog
+ * snapshot has been loaded. It first opens each connection pool up to its minimum idle
+ * size, then replays a synthetic mix of product and cart requests over loopback HTTP
+ * against the real server. That way the JIT, Tomcat, Jackson, the
+ * Hibernate query plans and prepared statements, and the response cache are all warm
+ * when the first real request arrives. The replay is exempt from admission control
+ * through a one-off token (see {@link RateLimitInterceptor#openBypass()}), since all of
+ * it comes from one loopback address. The requests are built from a sample of existing
+ * products, categories and carts. Product writes (create, update, delete of a throwaway
+ * product) are only replayed with {@code ecommerce.warmup.include-writes=true}.
+ *
+ * Everything stops when {@code ecommerce.warmup.budget-ms} runs out, so a slow warm-up
+ * delays readiness by at most that much. Views recorded by the replay are cleared from
+ * {@link TrendingService} afterwards.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class StartupWarmup implements ApplicationRunner {
+
+    /**
+     * How the warm-up ended, used as the {@code warmup} tag of the latency metrics.
+     */
+    public enum Outcome {
+        PENDING, DISABLED, SKIPPED, COMPLETED, BUDGET_EXCEEDED;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    /** Products, categories and carts sampled to build the request mix. */
+    private static final int SAMPLE_SIZE = 50;
+
+    private static final Duration MAX_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final String CLIENT_ID = "startup-warmup";
+
+    private final ApplicationContext context;
+
+    private final ProductService productService;
+
+    private final CartRepository cartRepository;
+
+    private final TrendingService trendingService;
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final long budgetMillis;
+
+    private final int requests;
+
+    private final int concurrency;
+
+    private final boolean includeWrites;
+
+    private final String clientHeader;
+
+    private volatile Outcome outcome = Outcome.PENDING;
+
+    public StartupWarmup(ApplicationContext context, ProductService productService, CartRepository cartRepository,
+                         TrendingService trendingService, RateLimitInterceptor rateLimitInterceptor,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         @Value("${ecommerce.warmup.enabled:true}") boolean enabled,
+                         @Value("${ecommerce.warmup.budget-ms:30000}") long budgetMillis,
+                         @Value("${ecommerce.warmup.requests:2000}") int requests,
+                         @Value("${ecommerce.warmup.concurrency:4}") int concurrency,
+                         @Value("${ecommerce.warmup.include-writes:false}") boolean includeWrites,
+                         @Value("${ecommerce.rate-limit.client-header:X-Client-Id}") String clientHeader) {
+        this.context = context;
+        this.productService = productService;
+        this.cartRepository = cartRepository;
+        this.trendingService = trendingService;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.budgetMillis = budgetMillis;
+        this.requests = requests;
+        this.concurrency = Math.max(concurrency, 1);
+        this.includeWrites = includeWrites;
+        this.clientHeader = clientHeader;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled) {
+            outcome = Outcome.DISABLED;
+            return;
+        }
+        int port = context instanceof WebServerApplicationContext
+                ? ((WebServerApplicationContext) context).getWebServer().getPort() : -1;
+        if (port <= 0) {
+            log.debug("No web server is running, skipping startup warm-up");
+            outcome = Outcome.SKIPPED;
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        int connections = openConnections(deadline);
+        Replay replay = new Replay(baseUri(port), deadline, rateLimitInterceptor.openBypass());
+        try {
+            replay.run(requestMix());
+        } finally {
+            rateLimitInterceptor.closeBypass();
+            trendingService.reset();
+        }
+        long elapsed = System.nanoTime() - start;
+        outcome = System.nanoTime() - deadline >= 0 ? Outcome.BUDGET_EXCEEDED : Outcome.COMPLETED;
+        Timer.builder("startup.warmup").tag("outcome", outcome.tag()).register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Startup warm-up {}: {} requests ({} throttled, {} failed), {} connections pre-opened in {} ms",
+                outcome.tag(), replay.sent.get(), replay.throttled.get(), replay.failed.get(), connections,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * Borrows each pool's minimum idle number of connections at once, so all of them are
+     * physically open, then hands them back.
+     */
+    private int openConnections(long deadline) {
+        int opened = 0;
+        for (HikariDataSource pool : context.getBeansOfType(HikariDataSource.class).values()) {
+            int target = pool.getMinimumIdle() > 0 ? pool.getMinimumIdle() : pool.getMaximumPoolSize();
+            List<Connection> held = new ArrayList<>();
+            try {
+                while (held.size() < target && System.nanoTime() - deadline < 0) {
+                    held.add(pool.getConnection());
+                }
+            } catch (SQLException e) {
+                log.warn("Could not pre-open connections of pool {}: {}", pool.getPoolName(), e.getMessage());
+            } finally {
+                opened += held.size();
+                for (Connection connection : held) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        log.debug("Could not return warm-up connection", e);
+                    }
+                }
+            }
+        }
+        return opened;
+    }
+
+    private List<Step> requestMix() {
+        List<Product> products = productService.getProductsAfter(0, SAMPLE_SIZE);
+        List<String> ids = orDefault(products.stream().map(product -> product.getId().toString())
+                .collect(Collectors.toList()), "1");
+        List<String> words = orDefault(products.stream().map(Product::getName).filter(Objects::nonNull)
+                .map(name -> name.trim().split("\\s+")[0]).filter(word -> !word.isEmpty())
+                .collect(Collectors.toList()), "warmup");
+        List<String> categories = orDefault(productService.countProductsByCategory().keySet().stream()
+                .limit(SAMPLE_SIZE).collect(Collectors.toList()), "warmup");
+        List<String> customers = orDefault(cartRepository.findAll(PageRequest.of(0, SAMPLE_SIZE)).stream()
+                .map(Cart::getCustomerName).filter(Objects::nonNull).collect(Collectors.toList()), "warmup");
+        String idList = String.join(",", ids.subList(0, Math.min(ids.size(), 10)));
+
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            String id = ids.get(i % ids.size());
+            steps.add(get("/api/products/" + id));
+            steps.add(get("/api/products/" + id + "/related"));
+            steps.add(get("/api/products/by-category/" + segment(categories.get(i % categories.size())) + "?size=20"));
+            steps.add(get("/api/products/search?q=" + query(words.get(i % words.size()))));
+            steps.add(get("/api/carts/" + segment(customers.get(i % customers.size()))));
+            if (i % 5 == 0) {
+                steps.add(get("/api/products?page=" + i / 5 + "&size=20"));
+                steps.add(get("/api/products/categories?ids=" + idList));
+                steps.add(get("/api/products/categories/counts"));
+                steps.add(get("/api/products/trending"));
+            }
+            if (includeWrites && i % 10 == 0) {
+                steps.add(this::writeThrowawayProduct);
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Creates, updates and deletes a product through the write endpoints.
+     */
+    private void writeThrowawayProduct(Replay replay) throws IOException, InterruptedException {
+        String body = "{\"name\":\"warmup\",\"price\":1.0,\"attributes\":{\"warmup\":\"true\"}}";
+        HttpResponse<String> created = replay.send("POST", "/api/products", body, null);
+        if (created == null || created.statusCode() != 200) {
+            return;
+        }
+        JsonNode product = objectMapper.readTree(created.body());
+        String path = "/api/products/" + product.path("id").asLong();
+        replay.send("PUT", path, body.replace("1.0", "2.0"), product.path("version").asText());
+        replay.send("DELETE", path, null, null);
+    }
+
+    private Step get(String path) {
+        return replay -> replay.send("GET", path, null, null);
+    }
+
+    private URI baseUri(int port) {
+        String host = context.getEnvironment().getProperty("server.address", "localhost");
+        String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+        return URI.create("http://" + host + ":" + port + contextPath);
+    }
+
+    private static List<String> orDefault(List<String> values, String fallback) {
+        return values.isEmpty() ? Collections.singletonList(fallback) : values;
+    }
+
+    private static String segment(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static String query(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run(Replay replay) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Replays the steps round-robin from {@code concurrency} threads until
+     * {@code requests} requests were sent or the deadline passes.
+     */
+    private final class Replay {
+
+        private final HttpClient client = HttpClient.newBuilder().connectTimeout(MAX_REQUEST_TIMEOUT).build();
+
+        private final URI base;
+
+        private final long deadline;
+
+        private final String bypassToken;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final AtomicInteger sent = new AtomicInteger();
+
+        private final AtomicInteger throttled = new AtomicInteger();
+
+        private final AtomicInteger failed = new AtomicInteger();
+
+        Replay(URI base, long deadline, String bypassToken) {
+            this.base = base;
+            this.deadline = deadline;
+            this.bypassToken = bypassToken;
+        }
+
+        void run(List<Step> steps) throws InterruptedException {
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "startup-warmup");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                for (int i = 0; i < concurrency; i++) {
+                    workers.execute(() -> work(steps));
+                }
+                workers.shutdown();
+                long remaining = deadline - System.nanoTime();
+                if (!workers.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                    log.warn("Startup warm-up ran out of its {} ms budget", budgetMillis);
+                }
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+
+        private void work(List<Step> steps) {
+            while (sent.get() < requests && System.nanoTime() - deadline < 0) {
+                Step step = steps.get(Math.floorMod(next.getAndIncrement(), steps.size()));
+                try {
+                    step.run(this);
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return the response, or {@code null} if the budget is spent
+         */
+        HttpResponse<String> send(String method, String path, String body, String ifMatch)
+                throws IOException, InterruptedException {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path))
+                    .timeout(Duration.ofNanos(Math.min(remaining, MAX_REQUEST_TIMEOUT.toNanos())))
+                    .header(clientHeader, CLIENT_ID)
+                    .header(RateLimitInterceptor.BYPASS_HEADER, bypassToken)
+                    .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofString(body));
+            if (body != null) {
+                request.header("Content-Type", "application/json");
+            }
+            if (ifMatch != null) {
+                request.header("If-Match", ifMatch);
+            }
+            sent.incrementAndGet();
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 429) {
+                throttled.incrementAndGet();
+            } else if (response.statusCode() >= 500) {
+                failed.incrementAndGet();
+            }
+            return response;
+        }
+    }
+}
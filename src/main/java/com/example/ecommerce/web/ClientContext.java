@@ -0,0 +1,54 @@
+package com.example.ecommerce.web;
+
+import java.security.Principal;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.example.ecommerce.config.RateLimitProperties;
+
+/**
+ * Identity of the client behind the request currently being handled on this thread.
+ */
+public final class ClientContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ClientContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void set(String clientId) {
+        if (clientId == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(clientId);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Identifies the client by the authenticated principal, else by the client header if
+     * {@code ecommerce.rate-limit.trust-client-header} says a gateway sets it, else by the
+     * remote address. Rate limits and read-your-writes pinning both key clients this way,
+     * so a caller cannot claim another client's identity by sending its header.
+     */
+    public static String resolve(HttpServletRequest request, RateLimitProperties properties) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "principal:" + principal.getName();
+        }
+        if (properties.isTrustClientHeader()) {
+            String client = request.getHeader(properties.getClientHeader());
+            if (client != null && !client.isEmpty()) {
+                return "client:" + client;
+            }
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+}
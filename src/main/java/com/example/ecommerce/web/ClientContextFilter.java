@@ -0,0 +1,34 @@
+package com.example.ecommerce.web;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.ecommerce.config.RateLimitProperties;
+
+@Component
+public class ClientContextFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+
+    public ClientContextFilter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ClientContext.set(ClientContext.resolve(request, properties));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ClientContext.clear();
+        }
+    }
+}
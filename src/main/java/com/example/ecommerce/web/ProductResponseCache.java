@@ -0,0 +1,162 @@
+package com.example.ecommerce.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Already-encoded JSON (and optionally gzip) bodies for hot catalog reads, keyed by
+ * product id or listing page. A hit is written out as-is without touching Jackson.
+ *
+ * Every committed product write drops the product's entry and all listing pages. A
+ * generation counter keeps a read that started before the write from putting its
+ * stale body back afterwards.
+ */
+@Component
+public class ProductResponseCache {
+
+    private static final String LISTING_PREFIX = "page:";
+
+    private final Cache<String, EncodedResponse> responses;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final boolean gzip;
+
+    private final int gzipMinBytes;
+
+    public ProductResponseCache(ObjectMapper objectMapper,
+                                @Value("${ecommerce.response-cache.enabled:true}") boolean enabled,
+                                @Value("${ecommerce.response-cache.max-bytes:67108864}") long maxBytes,
+                                @Value("${ecommerce.response-cache.gzip:true}") boolean gzip,
+                                @Value("${ecommerce.response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gzip = gzip;
+        this.gzipMinBytes = gzipMinBytes;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, EncodedResponse>weigher((key, response) -> response.weight())
+                .build();
+    }
+
+    /**
+     * Returns the cached body for a product, encoding {@code loader}'s result on a miss.
+     * Returns {@code null} if the loader finds nothing; misses are not cached.
+     */
+    public EncodedResponse product(Long id, Supplier<Object> loader) {
+        return lookup("product:" + id, loader);
+    }
+
+    public EncodedResponse listing(String pageKey, Supplier<Object> loader) {
+        return lookup(LISTING_PREFIX + pageKey, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        responses.invalidate("product:" + event.getProductId());
+        responses.asMap().keySet().removeIf(key -> key.startsWith(LISTING_PREFIX));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        responses.invalidateAll();
+    }
+
+    /**
+     * Stores an already-loaded product, e.g. when warming the cache at startup.
+     */
+    public void putProduct(Long id, Object product) {
+        if (enabled) {
+            responses.put("product:" + id, encode(product));
+        }
+    }
+
+    private EncodedResponse lookup(String key, Supplier<Object> loader) {
+        if (!enabled) {
+            Object value = loader.get();
+            return value == null ? null : encode(value);
+        }
+        EncodedResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long observedGeneration = generation.get();
+        Object value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        EncodedResponse encoded = encode(value);
+        if (generation.get() == observedGeneration) {
+            responses.put(key, encoded);
+            if (generation.get() != observedGeneration) {
+                responses.invalidate(key);
+            }
+        }
+        return encoded;
+    }
+
+    private EncodedResponse encode(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new EncodedResponse(json, gzip && json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static class EncodedResponse {
+
+        private final byte[] json;
+
+        private final byte[] gzip;
+
+        EncodedResponse(byte[] json, byte[] gzip) {
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * Gzip-compressed body, or {@code null} if the body was too small to be worth it.
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        int weight() {
+            return json.length + (gzip == null ? 0 : gzip.length) + 64;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.ecommerce.web;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.ecommerce.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Admission control in front of the controllers.
+ *
+ * A request must pass its client's token bucket, the endpoint's shared token bucket
+ * (if configured) and the endpoint's concurrency cap (if configured). Anything over
+ * budget is answered straight away with {@code 429 Too Many Requests} and a
+ * {@code Retry-After} header instead of waiting for a connection.
+ *
+ * Clients are identified by {@link ClientContext#resolve}: the authenticated principal,
+ * else the remote address. The client header is only used when
+ * {@code ecommerce.rate-limit.trust-client-header} is set, i.e. when a gateway in front
+ * of the service sets it. At most
+ * {@code ecommerce.rate-limit.max-clients} buckets are kept; beyond that the least
+ * valuable ones are evicted, so a new client always gets a bucket of its own.
+ */
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".permit";
+
+    /** Request header carrying the token handed out by {@link #openBypass()}. */
+    public static final String BYPASS_HEADER = "X-Admission-Bypass";
+
+    private final RateLimitProperties properties;
+
+    private final Cache<String, TokenBucket> clientBuckets;
+
+    private volatile byte[] bypassToken;
+
+    private final Map<String, TokenBucket> routeBuckets = new HashMap<>();
+
+    private final Map<String, Semaphore> routePermits = new HashMap<>();
+
+    public RateLimitInterceptor(RateLimitProperties properties) {
+        this.properties = properties;
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(Math.max(properties.getMaxClients(), 1))
+                .executor(Runnable::run)
+                .build();
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            String key = routeKey(route.getMethod(), route.getPattern());
+            if (route.getRate() > 0) {
+                routeBuckets.put(key, new TokenBucket(route.getRate(), Math.max(route.getBurst(), 1)));
+            }
+            if (route.getMaxConcurrent() > 0) {
+                routePermits.put(key, new Semaphore(route.getMaxConcurrent()));
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches resume a request that was already admitted.
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (isBypassed(request)) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long wait = clientBucket(ClientContext.resolve(request, properties)).tryAcquire(now);
+        if (wait > 0) {
+            return reject(response, wait);
+        }
+        String route = routeKey(request.getMethod(),
+                (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        TokenBucket routeBucket = routeBuckets.get(route);
+        if (routeBucket != null && (wait = routeBucket.tryAcquire(now)) > 0) {
+            return reject(response, wait);
+        }
+        Semaphore permits = routePermits.get(route);
+        if (permits != null) {
+            if (!permits.tryAcquire()) {
+                return reject(response, TimeUnit.SECONDS.toNanos(1));
+            }
+            request.setAttribute(PERMIT_ATTRIBUTE, permits);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Semaphore permits = (Semaphore) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permits != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    /**
+     * Drops buckets of clients that have been quiet long enough to be full again.
+     */
+    public void evictIdleClients() {
+        long now = System.nanoTime();
+        clientBuckets.asMap().values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    /**
+     * Lets requests carrying the returned token in {@link #BYPASS_HEADER} skip admission
+     * control until {@link #closeBypass()}. The token is random and never leaves the
+     * process except on the requests of the caller, which is meant to be the startup
+     * warm-up replaying traffic over loopback.
+     */
+    public String openBypass() {
+        String token = UUID.randomUUID().toString();
+        bypassToken = token.getBytes(StandardCharsets.UTF_8);
+        return token;
+    }
+
+    public void closeBypass() {
+        bypassToken = null;
+    }
+
+    long trackedClients() {
+        clientBuckets.cleanUp();
+        return clientBuckets.estimatedSize();
+    }
+
+    private boolean isBypassed(HttpServletRequest request) {
+        byte[] token = bypassToken;
+        String presented = request.getHeader(BYPASS_HEADER);
+        return token != null && presented != null
+                && MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private TokenBucket clientBucket(String key) {
+        return clientBuckets.get(key,
+                ignored -> new TokenBucket(properties.getClientRate(), properties.getClientBurst()));
+    }
+
+    private static boolean reject(HttpServletResponse response, long waitNanos) {
+        long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(seconds));
+        return false;
+    }
+
+    private static String routeKey(String method, String pattern) {
+        return method + " " + pattern;
+    }
+}
@@ -0,0 +1,67 @@
+-- Tables mirror the entity mappings; Hibernate validates them on startup.
+-- Foreign keys are added after the explicit indexes so the database reuses those
+-- indexes instead of creating anonymous ones of its own.
+
+CREATE TABLE product (
+    id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name  VARCHAR(255),
+    price DOUBLE PRECISION NOT NULL
+);
+
+CREATE TABLE product_categories (
+    product_id BIGINT NOT NULL,
+    categories VARCHAR(255)
+);
+
+CREATE TABLE product_attributes (
+    product_id     BIGINT       NOT NULL,
+    attributes_key VARCHAR(255) NOT NULL,
+    attributes     VARCHAR(255),
+    CONSTRAINT pk_product_attributes PRIMARY KEY (product_id, attributes_key)
+);
+
+CREATE TABLE category (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255)
+);
+
+CREATE TABLE category_products (
+    category_id BIGINT NOT NULL,
+    products_id BIGINT NOT NULL,
+    CONSTRAINT uk_category_products_product UNIQUE (products_id)
+);
+
+CREATE TABLE cart (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customer_name VARCHAR(255)
+);
+
+CREATE TABLE cart_categories (
+    cart_id       BIGINT NOT NULL,
+    categories_id BIGINT NOT NULL,
+    CONSTRAINT uk_cart_categories_category UNIQUE (categories_id)
+);
+
+-- Lookup columns
+CREATE INDEX idx_product_name ON product (name);
+CREATE INDEX idx_product_price ON product (price);
+CREATE INDEX idx_cart_customer_name ON cart (customer_name);
+
+-- Collection and join-table owners
+CREATE INDEX idx_product_categories_product ON product_categories (product_id);
+CREATE INDEX idx_product_attributes_product ON product_attributes (product_id);
+CREATE INDEX idx_category_products_category ON category_products (category_id);
+CREATE INDEX idx_cart_categories_cart ON cart_categories (cart_id);
+
+ALTER TABLE product_categories
+    ADD CONSTRAINT fk_product_categories_product FOREIGN KEY (product_id) REFERENCES product (id);
+ALTER TABLE product_attributes
+    ADD CONSTRAINT fk_product_attributes_product FOREIGN KEY (product_id) REFERENCES product (id);
+ALTER TABLE category_products
+    ADD CONSTRAINT fk_category_products_category FOREIGN KEY (category_id) REFERENCES category (id);
+ALTER TABLE category_products
+    ADD CONSTRAINT fk_category_products_product FOREIGN KEY (products_id) REFERENCES product (id);
+ALTER TABLE cart_categories
+    ADD CONSTRAINT fk_cart_categories_cart FOREIGN KEY (cart_id) REFERENCES cart (id);
+ALTER TABLE cart_categories
+    ADD CONSTRAINT fk_cart_categories_category FOREIGN KEY (categories_id) REFERENCES category (id);
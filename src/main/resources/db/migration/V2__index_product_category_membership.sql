@@ -0,0 +1,3 @@
+-- product_categories is the category membership relation: look products up by
+-- category, in id order, without touching the table.
+CREATE INDEX idx_product_categories_category ON product_categories (categories, product_id);
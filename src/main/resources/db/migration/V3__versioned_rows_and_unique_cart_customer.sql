@@ -0,0 +1,19 @@
+-- Optimistic locking: concurrent read-modify-write of the same product or cart fails
+-- the later commit instead of silently overwriting the earlier one.
+ALTER TABLE product ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE cart ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+-- One cart per customer. Existing duplicates are merged first: each customer keeps
+-- their oldest cart, which takes over the categories of the others. Names are matched
+-- case-insensitively, like the lookups (see V4).
+UPDATE cart_categories cc
+SET cart_id = (SELECT MIN(k.id) FROM cart c JOIN cart k ON UPPER(k.customer_name) = UPPER(c.customer_name)
+               WHERE c.id = cc.cart_id)
+WHERE EXISTS (SELECT 1 FROM cart c JOIN cart k ON UPPER(k.customer_name) = UPPER(c.customer_name)
+              WHERE c.id = cc.cart_id AND k.id < c.id);
+DELETE FROM cart c
+WHERE EXISTS (SELECT 1 FROM cart k WHERE UPPER(k.customer_name) = UPPER(c.customer_name) AND k.id < c.id);
+
+-- The unique index replaces the plain one for lookups by name.
+DROP INDEX idx_cart_customer_name;
+CREATE UNIQUE INDEX uk_cart_customer_name ON cart (customer_name);
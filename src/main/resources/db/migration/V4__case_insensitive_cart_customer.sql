@@ -0,0 +1,3 @@
+-- Customer names are matched case-insensitively. Comparing in the column's own
+-- collation keeps lookups by name a plain equality on uk_cart_customer_name.
+ALTER TABLE cart ALTER COLUMN customer_name SET DATA TYPE VARCHAR_IGNORECASE(255);
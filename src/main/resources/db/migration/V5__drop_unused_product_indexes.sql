@@ -0,0 +1,4 @@
+-- No query filters on price, and search matches names with LIKE '%text%' on the
+-- lower-cased name, which cannot use a plain index on the column.
+DROP INDEX idx_product_name;
+DROP INDEX idx_product_price;
@@ -0,0 +1,118 @@
+package com.example.ecommerce.analytics;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.CartRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class CartExportServiceTest {
+
+    @Autowired
+    private CartExportService cartExportService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Each cart becomes one CSV row with its category and product counts and value
+    @Test
+    public void csv_export_summarizes_each_cart() throws Exception {
+        // Arrange
+        String tag = UUID.randomUUID().toString();
+        String quoted = "Doe, \"J\" " + tag;
+        Cart full = cartRepository.save(cart(quoted, category("Books", 10.25, 4.5), category("Games", 20), category("Empty")));
+        Cart empty = cartRepository.save(cart("Empty " + tag));
+
+        // Act
+        String csv = export(CartExportFormat.CSV);
+
+        // Assert
+        List<String> lines = Arrays.asList(csv.split("\n"));
+        assertEquals("cart_id,customer_name,categories,products,value", lines.get(0));
+        assertTrue(lines.contains(full.getId() + ",\"Doe, \"\"J\"\" " + tag + "\",3,3,34.75"));
+        assertTrue(lines.contains(empty.getId() + ",Empty " + tag + ",0,0,0.00"));
+    }
+
+    // NDJSON has one object per line carrying the same fields
+    @Test
+    public void ndjson_export_writes_one_object_per_line() throws Exception {
+        // Arrange
+        String customer = "Customer " + UUID.randomUUID();
+        Cart saved = cartRepository.save(cart(customer, category("Toys", 1.1, 2.2, 3.3)));
+
+        // Act
+        String ndjson = export(CartExportFormat.NDJSON);
+
+        // Assert
+        Map<String, JsonNode> byCustomer = new HashMap<>();
+        for (String line : ndjson.split("\n")) {
+            JsonNode row = objectMapper.readTree(line);
+            byCustomer.put(row.get("customerName").asText(), row);
+        }
+        JsonNode row = byCustomer.get(customer);
+        assertEquals(saved.getId().longValue(), row.get("cartId").asLong());
+        assertEquals(1, row.get("categories").asInt());
+        assertEquals(3, row.get("products").asInt());
+        assertEquals(6.6, row.get("value").asDouble(), 1e-9);
+    }
+
+    // Exports beyond ecommerce.export.max-concurrent are refused until a slot is closed
+    @Test
+    public void concurrent_exports_are_limited() {
+        // Arrange
+        CartExportService.Export first = cartExportService.open(CartExportFormat.CSV);
+
+        // Act / Assert
+        try {
+            assertThrows(IllegalStateException.class, () -> cartExportService.open(CartExportFormat.CSV));
+        } finally {
+            first.close();
+        }
+        cartExportService.open(CartExportFormat.NDJSON).close();
+    }
+
+    private String export(CartExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CartExportService.Export export = cartExportService.open(format)) {
+            export.writeTo(out);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Cart cart(String customer, Category... categories) {
+        Cart cart = new Cart();
+        cart.setCustomerName(customer);
+        cart.getCategories().addAll(Arrays.asList(categories));
+        return cart;
+    }
+
+    private static Category category(String name, double... prices) {
+        Category category = new Category();
+        category.setName(name);
+        for (double price : prices) {
+            Product product = new Product();
+            product.setName(name + " item");
+            product.setPrice(price);
+            category.getProducts().add(product);
+        }
+        return category;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.dto.CompactProduct;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.util.StringDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares sync and async product reads against a database that takes
+ * {@value #DB_LATENCY_MS} ms per call, with Tomcat capped at {@value #TOMCAT_THREADS}
+ * threads. Run with {@code mvn test -Dbenchmarks=true -Dtest=AsyncThroughputBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ecommerce.async.enabled=true",
+        "ecommerce.async.pool-size=64",
+        "ecommerce.async.queue-capacity=1000",
+        "server.tomcat.threads.max=" + AsyncThroughputBenchmarkTest.TOMCAT_THREADS,
+        "server.tomcat.accept-count=1000",
+        "ecommerce.rate-limit.enabled=false",
+        "ecommerce.response-cache.enabled=false",
+        "ecommerce.warmup.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+public class AsyncThroughputBenchmarkTest {
+
+    static final int TOMCAT_THREADS = 8;
+
+    static final int DB_LATENCY_MS = 50;
+
+    private static final int REQUESTS = 400;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private ProductService productService;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    public void compare_sync_and_async_throughput_with_slow_database() throws Exception {
+        // Arrange
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Slow Product");
+        product.setPrice(10.0);
+        CompactProduct view = CompactProduct.of(product, new StringDictionary());
+        when(productService.getProductView(anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(DB_LATENCY_MS);
+            return Optional.of(view);
+        });
+        run("/api/products/1", 50);
+        run("/api/async/products/1", 50);
+
+        // Act
+        double syncThroughput = run("/api/products/1", REQUESTS);
+        double asyncThroughput = run("/api/async/products/1", REQUESTS);
+
+        // Assert
+        System.out.printf("Sync:  %.1f req/s%nAsync: %.1f req/s (%.1fx)%n",
+                syncThroughput, asyncThroughput, asyncThroughput / syncThroughput);
+        assertTrue(asyncThroughput > syncThroughput, "async mode should outperform sync mode");
+    }
+
+    private double run(String path, int requests) {
+        URI uri = URI.create("http://localhost:" + port + path);
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return requests / seconds;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.EcommerceApplication;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.journal.FsyncPolicy;
+import com.example.ecommerce.journal.ProductJournal;
+import com.example.ecommerce.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures what the product journal adds to the write path: product saves through
+ * {@link ProductService} with the journal off and under each fsync policy, and raw
+ * journal appends that return immediately against appends that wait for their batch to
+ * be forced, as a synchronous journal would.
+ * Run with {@code mvn test -Dbenchmarks=true -Dtest=JournalOverheadBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class JournalOverheadBenchmarkTest {
+
+    private static final int THREADS = 8;
+
+    private static final int WRITES_PER_THREAD = 1_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void compare_product_save_throughput_with_and_without_journal() throws Exception {
+        // Arrange
+        List<String> configurations = List.of("off", "NEVER", "INTERVAL", "ALWAYS");
+
+        // Act
+        // The first pass only warms up the JVM, so the configurations are compared on equal terms
+        List<String> results = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            results.clear();
+            for (String configuration : configurations) {
+                try (ConfigurableApplicationContext context = start(configuration + "-" + pass, configuration)) {
+                    ProductService productService = context.getBean(ProductService.class);
+                    run(() -> productService.saveProduct(product()));
+                    long nanos = run(() -> productService.saveProduct(product()));
+                    results.add(String.format("journal %-8s %,8.0f saves/s", configuration, rate(nanos)));
+                }
+            }
+        }
+
+        // Assert
+        assertEquals(configurations.size(), results.size());
+        results.forEach(System.out::println);
+    }
+
+    @Test
+    public void compare_queued_and_synchronous_journal_appends() throws Exception {
+        // Arrange
+        ProductJournal journal = new ProductJournal(new ObjectMapper(), new SimpleMeterRegistry(),
+                directory.resolve("raw").toString(), FsyncPolicy.ALWAYS, 100, 64L << 20, 512, 65_536);
+        journal.start();
+        String payload = new ObjectMapper().writeValueAsString(product());
+
+        // Act
+        long queued = run(() -> journal.append(ProductChangedEvent.Type.UPDATED, 1L, payload));
+        assertTrue(journal.flush(30_000));
+        long synchronous = run(() -> {
+            journal.append(ProductChangedEvent.Type.UPDATED, 1L, payload);
+            journal.flush(30_000);
+        });
+        journal.close();
+
+        // Assert
+        System.out.printf("journal appends: queued %,.0f/s, waiting for fsync %,.0f/s%n",
+                rate(queued), rate(synchronous));
+        assertTrue(journal.getLastSequence() >= 2L * THREADS * WRITES_PER_THREAD);
+    }
+
+    private static long run(Runnable write) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                        write.run();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static double rate(long nanos) {
+        return THREADS * WRITES_PER_THREAD / (nanos / 1e9);
+    }
+
+    private static Product product() {
+        Product product = new Product();
+        product.setName("Journalled product");
+        product.setPrice(19.99);
+        product.setCategories(new ArrayList<>(List.of("Electronics", "Lamps")));
+        product.setAttributes(Map.of("color", "red", "size", "L"));
+        return product;
+    }
+
+    private ConfigurableApplicationContext start(String name, String configuration) {
+        boolean enabled = !"off".equals(configuration);
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:journal-" + name,
+                        "--spring.jpa.show-sql=false",
+                        "--ecommerce.journal.enabled=" + enabled,
+                        "--ecommerce.journal.fsync=" + (enabled ? configuration : "ALWAYS"),
+                        "--ecommerce.journal.directory=" + directory.resolve(name).toAbsolutePath());
+    }
+}
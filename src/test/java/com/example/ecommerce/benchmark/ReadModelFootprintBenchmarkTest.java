@@ -0,0 +1,91 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.ProductReadModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the retained heap of a catalog held as entities against the same catalog in
+ * {@link ProductReadModel}. Strings are built per product, as they would be when read
+ * from JDBC, so the entity side carries the duplication seen in production.
+ * Run with {@code mvn test -Dbenchmarks=true -Dtest=ReadModelFootprintBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class ReadModelFootprintBenchmarkTest {
+
+    private static final int PRODUCTS = 200_000;
+
+    @Test
+    public void compare_entity_and_read_model_heap_footprint() {
+        // Arrange
+        ProductReadModel readModel = new ProductReadModel();
+
+        // Act
+        long entityBytes = retainedBytes(() -> {
+            List<Product> entities = new ArrayList<>(PRODUCTS);
+            for (int i = 0; i < PRODUCTS; i++) {
+                entities.add(product(i));
+            }
+            return entities;
+        });
+        long readModelBytes = retainedBytes(() -> {
+            long generation = readModel.generation();
+            for (int i = 0; i < PRODUCTS; i++) {
+                readModel.put(product(i), generation);
+            }
+            return readModel;
+        });
+
+        // Assert
+        assertEquals(PRODUCTS, readModel.size());
+        System.out.printf("%d products: entities %,d bytes (%d/product), read model %,d bytes (%d/product), "
+                        + "%d dictionary entries%n",
+                PRODUCTS, entityBytes, entityBytes / PRODUCTS, readModelBytes, readModelBytes / PRODUCTS,
+                readModel.dictionarySize());
+        assertTrue(readModelBytes < entityBytes);
+    }
+
+    private static Product product(int i) {
+        Product product = new Product();
+        product.setId((long) i);
+        product.setName("Product " + i);
+        product.setPrice(1 + i % 100);
+        List<String> categories = new ArrayList<>();
+        categories.add(new String("Electronics"));
+        categories.add("Category " + i % 50);
+        product.setCategories(categories);
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(new String("color"), "color-" + i % 10);
+        attributes.put(new String("size"), "size-" + i % 5);
+        attributes.put(new String("brand"), "brand-" + i % 200);
+        product.setAttributes(attributes);
+        return product;
+    }
+
+    private static long retainedBytes(Supplier<Object> builder) {
+        long before = usedHeap();
+        Object retained = builder.get();
+        long after = usedHeap();
+        assertNotNull(retained);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
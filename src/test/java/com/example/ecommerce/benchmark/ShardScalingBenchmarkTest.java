@@ -0,0 +1,170 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.shard.ShardRouter;
+import com.example.ecommerce.shard.ShardedProductStore;
+import com.example.ecommerce.shard.ShardingStrategy;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures read throughput of {@link ShardedProductStore} as shards are added, with a
+ * mix of point reads and first-page listings from {@value #CLIENTS} client threads.
+ *
+ * In-memory H2 shards would all share this JVM's CPUs, so each shard is given the
+ * capacity of a separate small database instead: at most {@value #SHARD_CONCURRENCY}
+ * concurrent connections, each charged {@value #SERVICE_MICROS} us of (sleeping)
+ * service time.
+ * Run with {@code mvn test -Dbenchmarks=true -Dtest=ShardScalingBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class ShardScalingBenchmarkTest {
+
+    private static final int PRODUCTS = 20_000;
+
+    private static final int CLIENTS = 32;
+
+    private static final int SHARD_CONCURRENCY = 2;
+
+    private static final long SERVICE_MICROS = 2_000;
+
+    private static final long DURATION_MS = 3_000;
+
+    @Test
+    public void measure_read_throughput_as_shards_are_added() throws Exception {
+        // Arrange
+        int[] shardCounts = {1, 2, 4, 8};
+
+        // Act
+        List<String> results = new ArrayList<>();
+        for (int shards : shardCounts) {
+            List<ConstrainedDataSource> dataSources = new ArrayList<>();
+            for (int i = 0; i < shards; i++) {
+                dataSources.add(new ConstrainedDataSource());
+            }
+            try (ShardedProductStore store = new ShardedProductStore(
+                    new ShardRouter(ShardingStrategy.HASH, new long[shards]), new ArrayList<>(dataSources), 64, 10_000)) {
+                store.initializeIdentities();
+                for (int i = 0; i < PRODUCTS; i++) {
+                    store.save(product(i));
+                }
+                dataSources.forEach(ConstrainedDataSource::constrain);
+                results.add(String.format("%d shard(s): %,8.0f reads/s", shards, run(store)));
+            }
+        }
+
+        // Assert
+        assertEquals(shardCounts.length, results.size());
+        results.forEach(System.out::println);
+    }
+
+    private static double run(ShardedProductStore store) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int operations = 0;
+                    while (System.nanoTime() < deadline) {
+                        if (random.nextInt(10) == 0) {
+                            assertEquals(20, store.findPage(0, 20).size());
+                        } else {
+                            assertTrue(store.findById(1 + random.nextInt(PRODUCTS)).isPresent());
+                        }
+                        operations++;
+                    }
+                    return operations;
+                }));
+            }
+            long total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get();
+            }
+            return total / (DURATION_MS / 1000.0);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private static Product product(int i) {
+        Product product = new Product();
+        product.setName("Product " + i);
+        product.setPrice(1 + i % 100);
+        product.setCategories(new ArrayList<>(List.of("Category " + i % 50)));
+        product.setAttributes(Map.of("color", "color-" + i % 10));
+        return product;
+    }
+
+    /**
+     * H2 database that, once constrained, admits a fixed number of concurrent connections
+     * and charges a fixed service time for each.
+     */
+    private static class ConstrainedDataSource extends DelegatingDataSource implements Closeable {
+
+        private final Semaphore slots = new Semaphore(SHARD_CONCURRENCY, true);
+
+        private volatile boolean constrained;
+
+        ConstrainedDataSource() {
+            HikariDataSource target = new HikariDataSource();
+            target.setJdbcUrl("jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+            target.setMaximumPoolSize(SHARD_CONCURRENCY);
+            Flyway.configure().dataSource(target).load().migrate();
+            setTargetDataSource(target);
+        }
+
+        @Override
+        public void close() {
+            ((HikariDataSource) obtainTargetDataSource()).close();
+        }
+
+        void constrain() {
+            constrained = true;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            if (!constrained) {
+                return connection;
+            }
+            slots.acquireUninterruptibly();
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(SERVICE_MICROS));
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName())) {
+                            slots.release();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
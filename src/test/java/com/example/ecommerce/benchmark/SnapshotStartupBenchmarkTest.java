@@ -0,0 +1,94 @@
+package com.example.ecommerce.benchmark;
+
+import com.example.ecommerce.EcommerceApplication;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.web.ProductResponseCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures time to boot and then serve every product once, with and without a catalog
+ * snapshot, against the same file-backed H2 catalog.
+ * Run with {@code mvn test -Dbenchmarks=true -Dtest=SnapshotStartupBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class SnapshotStartupBenchmarkTest {
+
+    private static final int PRODUCTS = 20_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void compare_startup_with_and_without_snapshot() {
+        // Arrange
+        Path snapshot = directory.resolve("catalog.snapshot");
+        try (ConfigurableApplicationContext seeding = start(snapshot, true)) {
+            ProductRepository repository = seeding.getBean(ProductRepository.class);
+            List<Product> batch = new ArrayList<>();
+            for (int i = 0; i < PRODUCTS; i++) {
+                Product product = new Product();
+                product.setName("Product " + i);
+                product.setPrice(1 + i % 100);
+                product.setCategories(Arrays.asList("Category " + i % 50));
+                product.setAttributes(Map.of("color", "color-" + i % 10, "size", "size-" + i % 5));
+                batch.add(product);
+                if (batch.size() == 1_000) {
+                    repository.saveAll(batch);
+                    batch.clear();
+                }
+            }
+        }
+        assertTrue(Files.exists(snapshot));
+
+        // Act
+        long cold = startAndServeAll(snapshot, false);
+        long warm = startAndServeAll(snapshot, true);
+
+        // Assert
+        System.out.printf("Startup + first read of %d products: without snapshot %d ms, with snapshot %d ms%n",
+                PRODUCTS, cold, warm);
+    }
+
+    private long startAndServeAll(Path snapshot, boolean snapshotEnabled) {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(snapshot, snapshotEnabled)) {
+            ProductService productService = context.getBean(ProductService.class);
+            ProductResponseCache responseCache = context.getBean(ProductResponseCache.class);
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            for (long id = 1; id <= PRODUCTS; id++) {
+                long productId = id;
+                // Stands in for open-in-view, which the web layer would provide
+                assertNotNull(transaction.execute(status ->
+                        responseCache.product(productId, () -> productService.getProductById(productId).orElse(null))));
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    private ConfigurableApplicationContext start(Path snapshot, boolean snapshotEnabled) {
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + directory.resolve("catalog-db").toAbsolutePath(),
+                        "--spring.jpa.show-sql=false",
+                        "--ecommerce.snapshot.enabled=" + snapshotEnabled,
+                        "--ecommerce.snapshot.path=" + snapshot.toAbsolutePath());
+    }
+}
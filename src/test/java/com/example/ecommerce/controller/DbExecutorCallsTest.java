@@ -0,0 +1,56 @@
+package com.example.ecommerce.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DbExecutorCallsTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Timed-out work is interrupted and work queued behind it that timed out never starts
+    @Test
+    public void supply_cancels_work_that_times_out() throws Exception {
+        // Arrange
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+
+        // Act
+        CompletableFuture<Object> running = DbExecutorCalls.supply(executor, 200, () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        });
+        // Times out while the running task still holds the only thread
+        CompletableFuture<Object> queued = DbExecutorCalls.supply(executor, 50, () -> {
+            queuedRan.set(true);
+            return null;
+        });
+
+        // Assert
+        ExecutionException timeout = assertThrows(ExecutionException.class, () -> running.get(1, TimeUnit.SECONDS));
+        assertTrue(timeout.getCause() instanceof TimeoutException);
+        assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertEquals("done", DbExecutorCalls.supply(executor, 1_000, () -> "done").get(1, TimeUnit.SECONDS));
+        assertFalse(queuedRan.get());
+    }
+}
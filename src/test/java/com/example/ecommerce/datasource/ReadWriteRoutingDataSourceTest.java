@@ -0,0 +1,134 @@
+package com.example.ecommerce.datasource;
+
+import com.example.ecommerce.web.ClientContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+
+    private DataSource replica;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        primary = h2("routing_primary");
+        replica = h2("routing_replica");
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, new ReadYourWritesTracker(60_000)));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbcTemplate = new JdbcTemplate(routing);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ClientContext.clear();
+        new JdbcTemplate(primary).execute("DROP TABLE marker");
+        new JdbcTemplate(replica).execute("DROP TABLE marker");
+    }
+
+    // Read-only transactions are served by the replica
+    @Test
+    public void read_only_transaction_uses_replica() {
+        assertEquals("routing_replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    // Read-write transactions and writes go to the primary
+    @Test
+    public void read_write_transaction_uses_primary() {
+        assertEquals("routing_primary", readWrite.execute(status -> whoAmI()));
+    }
+
+    // A client that just wrote keeps reading from the primary; other clients do not
+    @Test
+    public void reads_stick_to_primary_after_client_write() {
+        // Arrange
+        ClientContext.set("alice");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE marker SET name = name"));
+
+        // Act
+        String aliceReads = readOnly.execute(status -> whoAmI());
+        ClientContext.set("bob");
+        String bobReads = readOnly.execute(status -> whoAmI());
+
+        // Assert
+        assertEquals("routing_primary", aliceReads);
+        assertEquals("routing_replica", bobReads);
+    }
+
+    // Rolled back writes do not pin the client to the primary
+    @Test
+    public void rolled_back_write_does_not_pin_client() {
+        // Arrange
+        ClientContext.set("alice");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE marker SET name = name");
+            status.setRollbackOnly();
+        });
+
+        // Act & Assert
+        assertEquals("routing_replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    // A read-write transaction that only reads does not pin the client
+    @Test
+    public void read_write_transaction_without_writes_does_not_pin_client() {
+        // Arrange
+        ClientContext.set("alice");
+        readWrite.execute(status -> whoAmI());
+
+        // Act & Assert
+        assertEquals("routing_replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    // Several writes in one transaction register a single after-commit callback
+    @Test
+    public void writes_register_one_synchronization_per_transaction() {
+        // Arrange
+        ClientContext.set("alice");
+
+        // Act
+        int registered = readWrite.execute(status -> {
+            jdbcTemplate.update("UPDATE marker SET name = name");
+            jdbcTemplate.update("UPDATE marker SET name = name");
+            whoAmI();
+            return TransactionSynchronizationManager.getSynchronizations().size();
+        });
+
+        // Assert
+        assertEquals(1, registered);
+        assertEquals("routing_primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(64))");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.ecommerce.journal;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalReplayToolTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:journal_replay;DB_CLOSE_DELAY=-1", "sa", "");
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    // Replaying the journal into an empty database rebuilds the products it describes, keeping their ids
+    @Test
+    public void replay_rebuilds_products_with_their_ids() throws Exception {
+        // Arrange
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        ProductJournal journal = start(1 << 20);
+        journal.append(ProductChangedEvent.Type.CREATED, 5L, json(product(5L, "Lamp", 10, "Lighting")));
+        journal.append(ProductChangedEvent.Type.CREATED, 7L, json(product(7L, "Desk", 90, "Furniture")));
+        journal.append(ProductChangedEvent.Type.UPDATED, 5L, json(product(5L, "Desk lamp", 12, "Lighting", "Office")));
+        journal.append(ProductChangedEvent.Type.DELETED, 7L, null);
+        journal.close();
+
+        // Act
+        Map<String, Long> result = new JournalReplayTool(dataSource, objectMapper).replay(directory, 1);
+        jdbcTemplate.update("INSERT INTO product (name, price) VALUES ('Next', 1)");
+
+        // Assert
+        assertEquals(4L, result.get("records"));
+        assertEquals(4L, result.get("lastSequence"));
+        assertEquals("Desk lamp", jdbcTemplate.queryForObject("SELECT name FROM product WHERE id = 5", String.class));
+        assertEquals(Arrays.asList("Lighting", "Office"), jdbcTemplate.queryForList(
+                "SELECT categories FROM product_categories WHERE product_id = 5 ORDER BY categories", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product WHERE id = 7", Integer.class));
+        assertEquals(6L, jdbcTemplate.queryForObject("SELECT id FROM product WHERE name = 'Next'", Long.class));
+    }
+
+    // A compacted journal still deletes, on a restored backup, the products deleted after the backup was taken
+    @Test
+    public void replay_of_compacted_journal_applies_deletions_to_restored_backup() throws Exception {
+        // Arrange
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        ProductJournal journal = start(256);
+        journal.append(ProductChangedEvent.Type.CREATED, 1L, json(product(1L, "Lamp", 10, "Lighting")));
+        journal.append(ProductChangedEvent.Type.CREATED, 2L, json(product(2L, "Desk", 90, "Furniture")));
+        assertTrue(journal.flush(5_000));
+        // The backup holds both products
+        new JournalReplayTool(dataSource, objectMapper).replay(directory, 1);
+        journal.append(ProductChangedEvent.Type.DELETED, 2L, null);
+        for (int price = 11; price <= 20; price++) {
+            journal.append(ProductChangedEvent.Type.UPDATED, 1L, json(product(1L, "Lamp", price, "Lighting")));
+        }
+        journal.close();
+        journal = start(256);
+        journal.compact();
+        journal.close();
+
+        // Act
+        new JournalReplayTool(dataSource, objectMapper).replay(directory, 1);
+
+        // Assert
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product WHERE id = 2", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_categories WHERE product_id = 2", Integer.class));
+        assertEquals(20.0, jdbcTemplate.queryForObject("SELECT price FROM product WHERE id = 1", Double.class));
+    }
+
+    private ProductJournal start(long segmentBytes) throws Exception {
+        ProductJournal journal = new ProductJournal(objectMapper, new SimpleMeterRegistry(), directory.toString(),
+                FsyncPolicy.NEVER, 100, segmentBytes, 64, 1_000);
+        journal.start();
+        return journal;
+    }
+
+    private String json(Product product) throws Exception {
+        return objectMapper.writeValueAsString(product);
+    }
+
+    private static Product product(Long id, String name, double price, String... categories) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategories(new ArrayList<>(List.of(categories)));
+        return product;
+    }
+}
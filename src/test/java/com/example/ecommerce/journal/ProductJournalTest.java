@@ -0,0 +1,192 @@
+package com.example.ecommerce.journal;
+
+import com.example.ecommerce.event.ProductChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private ProductJournal journal;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // Appended mutations are replayed in order with consecutive sequence numbers
+    @Test
+    public void replay_returns_appended_records_in_order() throws Exception {
+        // Arrange
+        journal = start(FsyncPolicy.ALWAYS, 1 << 20);
+
+        // Act
+        for (long id = 1; id <= 100; id++) {
+            journal.append(ProductChangedEvent.Type.CREATED, id, "{\"id\":" + id + "}");
+        }
+        assertTrue(journal.flush(5_000));
+        List<JournalRecord> records = replay(1);
+
+        // Assert
+        assertEquals(100, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i + 1, records.get(i).getSequence());
+            assertEquals(i + 1, records.get(i).getProductId());
+            assertEquals("{\"id\":" + (i + 1) + "}", records.get(i).getPayload());
+        }
+    }
+
+    // Small segments roll over without losing or reordering records
+    @Test
+    public void segments_roll_at_configured_size() throws Exception {
+        // Arrange
+        journal = start(FsyncPolicy.NEVER, 512);
+
+        // Act
+        for (long id = 1; id <= 50; id++) {
+            journal.append(ProductChangedEvent.Type.UPDATED, id, "{\"name\":\"Product " + id + "\"}");
+        }
+        assertTrue(journal.flush(5_000));
+
+        // Assert
+        assertTrue(JournalSegments.list(directory).size() > 1);
+        assertEquals(50, replay(1).size());
+        assertEquals(10, replay(10).get(0).getSequence());
+        assertEquals(41, replay(10).size());
+    }
+
+    // Reads start at the segment holding the first sequence asked for and stop at the limit
+    @Test
+    public void replay_skips_earlier_segments_and_stops_at_limit() throws Exception {
+        // Arrange
+        journal = start(FsyncPolicy.NEVER, 512);
+        for (long id = 1; id <= 50; id++) {
+            journal.append(ProductChangedEvent.Type.UPDATED, id, "{\"name\":\"Product " + id + "\"}");
+        }
+        assertTrue(journal.flush(5_000));
+        List<Path> segments = JournalSegments.list(directory);
+        // An unreadable first segment fails any read that opens it
+        try (FileChannel channel = FileChannel.open(segments.get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0}), 0);
+        }
+        long from = JournalSegments.firstSequence(segments.get(1));
+
+        // Act
+        List<JournalRecord> records = new ArrayList<>();
+        long last = journal.replay(from, 5, records::add);
+
+        // Assert
+        assertEquals(5, records.size());
+        assertEquals(from, records.get(0).getSequence());
+        assertEquals(from + 4, last);
+    }
+
+    // A restarted journal continues after the last sequence written
+    @Test
+    public void restart_resumes_sequence() throws Exception {
+        // Arrange
+        journal = start(FsyncPolicy.ALWAYS, 1 << 20);
+        journal.append(ProductChangedEvent.Type.CREATED, 1L, "{}");
+        journal.append(ProductChangedEvent.Type.DELETED, 1L, null);
+        journal.close();
+
+        // Act
+        journal = start(FsyncPolicy.ALWAYS, 1 << 20);
+        journal.append(ProductChangedEvent.Type.CREATED, 2L, "{}");
+        assertTrue(journal.flush(5_000));
+        List<JournalRecord> records = replay(1);
+
+        // Assert
+        assertEquals(3, records.size());
+        assertEquals(3, records.get(2).getSequence());
+        assertNull(records.get(1).getPayload());
+    }
+
+    // A record torn by a crash is dropped and the records before it survive
+    @Test
+    public void torn_tail_is_discarded() throws Exception {
+        // Arrange
+        journal = start(FsyncPolicy.ALWAYS, 1 << 20);
+        for (long id = 1; id <= 3; id++) {
+            journal.append(ProductChangedEvent.Type.CREATED, id, "{}");
+        }
+        journal.close();
+        Path segment = JournalSegments.list(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // Act
+        journal = start(FsyncPolicy.ALWAYS, 1 << 20);
+        journal.append(ProductChangedEvent.Type.CREATED, 4L, "{}");
+        assertTrue(journal.flush(5_000));
+        List<JournalRecord> records = replay(1);
+
+        // Assert
+        assertEquals(3, records.size());
+        assertEquals(2, records.get(1).getSequence());
+        assertEquals(3, records.get(2).getSequence());
+        assertEquals(4L, records.get(2).getProductId());
+    }
+
+    // Compaction keeps the latest record per product, including deletions as tombstones
+    @Test
+    public void compaction_keeps_latest_record_per_product() throws Exception {
+        // Arrange
+        journal = start(FsyncPolicy.NEVER, 256);
+        for (int round = 0; round < 5; round++) {
+            for (long id = 1; id <= 4; id++) {
+                journal.append(ProductChangedEvent.Type.UPDATED, id, "{\"round\":" + round + "}");
+            }
+        }
+        journal.append(ProductChangedEvent.Type.DELETED, 4L, null);
+        assertTrue(journal.flush(5_000));
+        journal.close();
+        journal = start(FsyncPolicy.NEVER, 256);
+
+        // Act
+        Map<String, Object> result = journal.compact();
+        List<JournalRecord> records = replay(1);
+
+        // Assert
+        assertEquals(21L, result.get("recordsBefore"));
+        assertEquals(4, result.get("recordsAfter"));
+        assertEquals(4, records.size());
+        for (JournalRecord record : records.subList(0, 3)) {
+            assertEquals("{\"round\":4}", record.getPayload());
+        }
+        assertEquals(ProductChangedEvent.Type.DELETED, records.get(3).getType());
+        assertEquals(4L, records.get(3).getProductId());
+        assertEquals(2, JournalSegments.list(directory).size());
+    }
+
+    private ProductJournal start(FsyncPolicy policy, long segmentBytes) throws Exception {
+        ProductJournal started = new ProductJournal(new ObjectMapper(), new SimpleMeterRegistry(),
+                directory.toString(), policy, 100, segmentBytes, 64, 1_000);
+        started.start();
+        return started;
+    }
+
+    private List<JournalRecord> replay(long from) throws Exception {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(from, records::add);
+        return records;
+    }
+}
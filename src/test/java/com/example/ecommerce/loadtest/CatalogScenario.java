@@ -0,0 +1,91 @@
+package com.example.ecommerce.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Builds the requests for each operation of the traffic mix against a catalog seeded by
+ * {@link LoadTestMain}: products 1..n named "Product i", categories "Category j" and
+ * customers "customer-k".
+ */
+public class CatalogScenario {
+
+    private final String baseUrl;
+
+    private final LoadTestSettings settings;
+
+    public CatalogScenario(String baseUrl, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+    }
+
+    public HttpRequest request(String operation, Random random) {
+        switch (operation) {
+            case "product-by-id":
+                return get("/api/products/" + productId(random));
+            case "products-page":
+                return get("/api/products?page=" + random.nextInt(Math.max(settings.products / 20, 1)) + "&size=20");
+            case "search":
+                return get("/api/products/search?q=" + encode("Product " + random.nextInt(100)) + "&limit=20");
+            case "by-category":
+                return get("/api/products/by-category/" + encode(category(random)).replace("+", "%20") + "?size=20");
+            case "trending":
+                return get("/api/products/trending");
+            case "related":
+                return get("/api/products/" + productId(random) + "/related");
+            case "cart-by-customer":
+                return get("/api/carts/customer-" + random.nextInt(Math.max(settings.carts, 1)));
+            case "create-cart":
+                return post("/api/carts", "{\"customerName\":\"load-" + random.nextInt(1_000_000)
+                        + "\",\"categories\":[{\"name\":\"" + category(random) + "\"}]}");
+            case "create-product":
+                return post("/api/products", productJson(random));
+            case "update-product":
+                return builder("/api/products/" + productId(random))
+                        .PUT(HttpRequest.BodyPublishers.ofString(productJson(random)))
+                        .header("Content-Type", "application/json")
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private String productJson(Random random) {
+        return "{\"name\":\"Product " + random.nextInt(1_000_000) + "\",\"price\":" + (1 + random.nextInt(500))
+                + ",\"categories\":[\"" + category(random) + "\"],\"attributes\":{\"color\":\"color-"
+                + random.nextInt(10) + "\"}}";
+    }
+
+    private long productId(Random random) {
+        return 1 + random.nextInt(Math.max(settings.products, 1));
+    }
+
+    private String category(Random random) {
+        return "Category " + random.nextInt(Math.max(settings.categories, 1));
+    }
+
+    private HttpRequest get(String path) {
+        return builder(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return builder(path)
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMillis(settings.timeoutMillis))
+                .header("Accept-Encoding", "gzip");
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
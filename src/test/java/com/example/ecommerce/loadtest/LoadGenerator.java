@@ -0,0 +1,166 @@
+package com.example.ecommerce.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-model load generator: requests are started on a fixed schedule at the target
+ * rate whether or not earlier ones have completed, the way independent users arrive.
+ *
+ * Response time is measured from each request's scheduled start, so time a request
+ * spent waiting because the generator or the server fell behind is counted instead of
+ * silently omitted (coordinated omission). Service time, from the actual send, is
+ * recorded alongside for comparison.
+ */
+public class LoadGenerator {
+
+    /** Highest recordable latency, in microseconds. */
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final LoadTestSettings settings;
+
+    private final TrafficMix mix;
+
+    private final CatalogScenario scenario;
+
+    private final Map<String, OperationStats> stats = new LinkedHashMap<>();
+
+    public LoadGenerator(LoadTestSettings settings, TrafficMix mix, CatalogScenario scenario) {
+        this.settings = settings;
+        this.mix = mix;
+        this.scenario = scenario;
+        for (String name : mix.names()) {
+            stats.put(name, new OperationStats());
+        }
+    }
+
+    /**
+     * Sends traffic for the warm-up and then the measured period, and waits for the
+     * requests still in flight. Measured requests that have not completed when the wait
+     * times out are recorded as errors that took until then, so the slowest requests
+     * still count towards the percentiles.
+     *
+     * @return wall-clock length of the measured period in nanoseconds
+     */
+    public long run() throws InterruptedException {
+        ExecutorService callbacks = Executors.newFixedThreadPool(Math.max(Runtime.getRuntime().availableProcessors(), 2));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(settings.timeoutMillis))
+                .executor(callbacks)
+                .build();
+        Semaphore inFlight = new Semaphore(settings.maxInFlight);
+        Set<PendingRequest> pending = ConcurrentHashMap.newKeySet();
+        Random random = new Random(settings.seed);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+        try {
+            for (long i = 0; ; i++) {
+                long intended = start + i * interval;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                String operation = mix.pick(random);
+                HttpRequest request = scenario.request(operation, random);
+                OperationStats target = intended >= measureFrom ? stats.get(operation) : null;
+                inFlight.acquire();
+                long sent = System.nanoTime();
+                PendingRequest call = target != null ? new PendingRequest(target, intended, sent) : null;
+                if (call != null) {
+                    pending.add(call);
+                }
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                    long done = System.nanoTime();
+                    inFlight.release();
+                    if (call != null) {
+                        pending.remove(call);
+                        call.complete(done, failure == null && response.statusCode() < 400);
+                    }
+                });
+            }
+            if (!inFlight.tryAcquire(settings.maxInFlight, settings.timeoutMillis + 5_000L, TimeUnit.MILLISECONDS)) {
+                long cutoff = System.nanoTime();
+                int abandoned = 0;
+                for (PendingRequest call : pending) {
+                    if (call.complete(cutoff, false)) {
+                        abandoned++;
+                    }
+                }
+                System.err.println(abandoned + " requests still in flight after the timeout; recorded as errors at the timeout");
+            }
+            return end - measureFrom;
+        } finally {
+            callbacks.shutdownNow();
+        }
+    }
+
+    public Map<String, OperationStats> getStats() {
+        return stats;
+    }
+
+    /** A measured request that is recorded once, by whichever of completion or the final timeout comes first. */
+    private static class PendingRequest {
+
+        private final OperationStats target;
+
+        private final long intended;
+
+        private final long sent;
+
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        PendingRequest(OperationStats target, long intended, long sent) {
+            this.target = target;
+            this.intended = intended;
+            this.sent = sent;
+        }
+
+        boolean complete(long done, boolean success) {
+            if (!recorded.compareAndSet(false, true)) {
+                return false;
+            }
+            target.record(intended, sent, done, success);
+            return true;
+        }
+    }
+
+    public static class OperationStats {
+
+        final Histogram responseTime = new ConcurrentHistogram(MAX_MICROS, 3);
+
+        final Histogram serviceTime = new ConcurrentHistogram(MAX_MICROS, 3);
+
+        final LongAdder errors = new LongAdder();
+
+        void record(long intended, long sent, long done, boolean success) {
+            responseTime.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(done - intended), MAX_MICROS));
+            serviceTime.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(done - sent), MAX_MICROS));
+            if (!success) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ecommerce.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.ecommerce.EcommerceApplication;
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.repository.ProductRepository;
+
+/**
+ * Starts the application on a random port against a freshly seeded in-memory database,
+ * drives the configured traffic mix at the target rate and writes the latency reports.
+ *
+ * Run with {@code mvn -Ploadtest verify -DskipTests -Dloadtest.rate=500 -Dloadtest.duration=60};
+ * see {@link LoadTestSettings} for the other {@code loadtest.*} properties. With
+ * {@code -Dloadtest.url=...} an already running, already seeded server is targeted instead.
+ */
+public class LoadTestMain {
+
+    private static final int BATCH_SIZE = 500;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        TrafficMix mix = new TrafficMix(settings.mix);
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = settings.url;
+        if (baseUrl.isEmpty()) {
+            context = start(settings);
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            System.out.printf("Sending %s at %.0f req/s for %d s after a %d s warm-up to %s%n",
+                    settings.mix, settings.rate, settings.durationSeconds, settings.warmupSeconds, baseUrl);
+            LoadGenerator generator = new LoadGenerator(settings, mix, new CatalogScenario(baseUrl, settings));
+            long measuredNanos = generator.run();
+
+            LoadTestReport report = new LoadTestReport(settings, generator.getStats(), measuredNanos);
+            report.write(settings.output);
+            System.out.println(report.summaryLine());
+            System.out.println("Reports written to " + settings.output.toAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestSettings settings) {
+        SpringApplication application = new SpringApplication(EcommerceApplication.class);
+        application.setWebApplicationType(WebApplicationType.SERVLET);
+        ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--ecommerce.rate-limit.enabled=" + settings.rateLimit,
+                "--logging.level.root=WARN");
+        seed(context, settings);
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, LoadTestSettings settings) {
+        Random random = new Random(settings.seed);
+        ProductRepository products = context.getBean(ProductRepository.class);
+        List<Product> productBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= settings.products; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(1 + random.nextInt(500));
+            product.getCategories().add("Category " + random.nextInt(settings.categories));
+            if (random.nextBoolean()) {
+                product.getCategories().add("Category " + random.nextInt(settings.categories));
+            }
+            product.getAttributes().put("color", "color-" + random.nextInt(10));
+            product.getAttributes().put("size", "size-" + random.nextInt(5));
+            productBatch.add(product);
+            if (productBatch.size() == BATCH_SIZE) {
+                products.saveAll(productBatch);
+                productBatch.clear();
+            }
+        }
+        products.saveAll(productBatch);
+
+        CartRepository carts = context.getBean(CartRepository.class);
+        List<Cart> cartBatch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < settings.carts; i++) {
+            Cart cart = new Cart();
+            cart.setCustomerName("customer-" + i);
+            Category category = new Category();
+            category.setName("Category " + random.nextInt(settings.categories));
+            cart.getCategories().add(category);
+            cartBatch.add(cart);
+            if (cartBatch.size() == BATCH_SIZE) {
+                carts.saveAll(cartBatch);
+                cartBatch.clear();
+            }
+        }
+        carts.saveAll(cartBatch);
+        System.out.printf("Seeded %d products in %d categories and %d carts%n",
+                settings.products, settings.categories, settings.carts);
+    }
+}
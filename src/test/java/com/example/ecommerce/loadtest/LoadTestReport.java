@@ -0,0 +1,154 @@
+package com.example.ecommerce.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes load test results as {@code report.json}, {@code report.html} and an HdrHistogram
+ * percentile distribution ({@code response-time.hgrm}) of all response times.
+ */
+public class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99};
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+
+    private final Histogram allResponseTimes;
+
+    public LoadTestReport(LoadTestSettings settings, Map<String, LoadGenerator.OperationStats> stats,
+                          long measuredNanos) {
+        double seconds = measuredNanos / 1e9;
+        Histogram responseTimes = null;
+        Histogram serviceTimes = null;
+        long errors = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<String, LoadGenerator.OperationStats> entry : stats.entrySet()) {
+            LoadGenerator.OperationStats operation = entry.getValue();
+            Histogram response = operation.responseTime.copy();
+            Histogram service = operation.serviceTime.copy();
+            operations.put(entry.getKey(), summary(response, service, operation.errors.sum(), seconds));
+            responseTimes = add(responseTimes, response);
+            serviceTimes = add(serviceTimes, service);
+            errors += operation.errors.sum();
+        }
+        this.allResponseTimes = responseTimes;
+        report.put("generatedAt", Instant.now().toString());
+        report.put("settings", settings.describe());
+        report.put("measuredSeconds", seconds);
+        report.put("total", summary(responseTimes, serviceTimes, errors, seconds));
+        report.put("operations", operations);
+    }
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), report);
+        Files.write(directory.resolve("report.html"), html().getBytes(StandardCharsets.UTF_8));
+        try (PrintStream out = new PrintStream(directory.resolve("response-time.hgrm").toFile(), "UTF-8")) {
+            allResponseTimes.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public String summaryLine() {
+        Map<String, Object> total = (Map<String, Object>) report.get("total");
+        Map<String, Object> response = (Map<String, Object>) total.get("responseTimeMs");
+        return String.format("%,d requests, %.1f req/s, %d errors; response time p50 %s ms, p99 %s ms, max %s ms",
+                (Long) total.get("requests"), (Double) total.get("throughput"), (Long) total.get("errors"),
+                response.get("p50"), response.get("p99"), response.get("max"));
+    }
+
+    private static Map<String, Object> summary(Histogram response, Histogram service, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", response.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughput", round(response.getTotalCount() / seconds));
+        summary.put("responseTimeMs", percentiles(response));
+        summary.put("serviceTimeMs", percentiles(service));
+        return summary;
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            values.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                    : String.valueOf(percentile)), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        values.put("max", millis(histogram.getMaxValue()));
+        values.put("mean", round(histogram.getMean() / 1000.0));
+        return values;
+    }
+
+    private static Histogram add(Histogram total, Histogram next) {
+        if (total == null) {
+            return next.copy();
+        }
+        total.add(next);
+        return total;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String html() {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Load test report</title>\n")
+                .append("<style>body{font-family:sans-serif;margin:2em}table{border-collapse:collapse;margin-bottom:2em}")
+                .append("th,td{border:1px solid #ccc;padding:4px 8px;text-align:right}th:first-child,td:first-child")
+                .append("{text-align:left}.bar{background:#4a90d9;height:10px}</style></head><body>\n")
+                .append("<h1>Load test report</h1>\n<p>Generated ").append(escape(report.get("generatedAt")))
+                .append(", measured over ").append(report.get("measuredSeconds")).append(" s.</p>\n");
+
+        html.append("<h2>Settings</h2>\n<table>\n");
+        ((Map<String, Object>) report.get("settings")).forEach((key, value) ->
+                html.append("<tr><td>").append(escape(key)).append("</td><td>").append(escape(value)).append("</td></tr>\n"));
+        html.append("</table>\n");
+
+        Map<String, Object> rows = new LinkedHashMap<>((Map<String, Object>) report.get("operations"));
+        rows.put("total", report.get("total"));
+        for (String metric : new String[]{"responseTimeMs", "serviceTimeMs"}) {
+            html.append("<h2>").append(metric.equals("responseTimeMs")
+                    ? "Response time (from scheduled start, ms)" : "Service time (from actual send, ms)").append("</h2>\n");
+            html.append("<table>\n<tr><th>Operation</th><th>Requests</th><th>Errors</th><th>Req/s</th>");
+            Map<String, Object> header = (Map<String, Object>) ((Map<String, Object>) report.get("total")).get(metric);
+            header.keySet().forEach(key -> html.append("<th>").append(escape(key)).append("</th>"));
+            html.append("<th></th></tr>\n");
+            double scale = Math.max(((Number) header.get("max")).doubleValue(), 0.001);
+            rows.forEach((name, value) -> {
+                Map<String, Object> row = (Map<String, Object>) value;
+                Map<String, Object> latencies = (Map<String, Object>) row.get(metric);
+                html.append("<tr><td>").append(escape(name)).append("</td><td>").append(row.get("requests"))
+                        .append("</td><td>").append(row.get("errors")).append("</td><td>").append(row.get("throughput"))
+                        .append("</td>");
+                latencies.values().forEach(latency -> html.append("<td>").append(latency).append("</td>"));
+                double p99 = ((Number) latencies.get("p99")).doubleValue();
+                html.append("<td style=\"width:200px\"><div class=\"bar\" style=\"width:")
+                        .append(Math.round(200 * Math.min(p99 / scale, 1))).append("px\" title=\"p99\"></div></td></tr>\n");
+            });
+            html.append("</table>\n");
+        }
+        return html.append("</body></html>\n").toString();
+    }
+
+    private static String escape(Object value) {
+        return String.valueOf(value).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ecommerce.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ */
+public class LoadTestSettings {
+
+    static final String DEFAULT_MIX = "product-by-id=40,products-page=10,search=8,by-category=10,trending=5,"
+            + "related=5,cart-by-customer=10,create-cart=8,create-product=2,update-product=2";
+
+    /** Target request rate in requests per second, independent of response times. */
+    final double rate = Double.parseDouble(property("rate", "200"));
+
+    final int durationSeconds = Integer.parseInt(property("duration", "30"));
+
+    /** Traffic sent before measuring starts, at the same rate. */
+    final int warmupSeconds = Integer.parseInt(property("warmup", "5"));
+
+    final int products = Integer.parseInt(property("products", "5000"));
+
+    final int categories = Integer.parseInt(property("categories", "50"));
+
+    final int carts = Integer.parseInt(property("carts", "1000"));
+
+    final String mix = property("mix", DEFAULT_MIX);
+
+    /** Requests allowed in flight at once; beyond it, sending waits and the wait counts as latency. */
+    final int maxInFlight = Integer.parseInt(property("max-in-flight", "512"));
+
+    final int timeoutMillis = Integer.parseInt(property("timeout-ms", "10000"));
+
+    /** Base URL of an already running, already seeded server; when unset the application is started here. */
+    final String url = property("url", "");
+
+    final boolean rateLimit = Boolean.parseBoolean(property("rate-limit", "false"));
+
+    final Path output = Paths.get(property("output", "target/loadtest"));
+
+    final long seed = Long.parseLong(property("seed", "42"));
+
+    Map<String, Object> describe() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", rate);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("products", products);
+        settings.put("categories", categories);
+        settings.put("carts", carts);
+        settings.put("mix", mix);
+        settings.put("maxInFlight", maxInFlight);
+        settings.put("timeoutMillis", timeoutMillis);
+        settings.put("url", url.isEmpty() ? "embedded" : url);
+        settings.put("rateLimit", rateLimit);
+        return settings;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ecommerce.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted choice between named operations, parsed from {@code name=weight,name=weight}.
+ */
+public class TrafficMix {
+
+    private final List<String> names = new ArrayList<>();
+
+    private final int[] cumulative;
+
+    private final int total;
+
+    public TrafficMix(String spec) {
+        List<Integer> weights = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=weight but got '" + trimmed + "'");
+            }
+            int weight = Integer.parseInt(trimmed.substring(separator + 1).trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + trimmed);
+            }
+            if (weight > 0) {
+                names.add(trimmed.substring(0, separator).trim());
+                weights.add(weight);
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("Traffic mix has no operations: " + spec);
+        }
+        cumulative = new int[weights.size()];
+        int sum = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            sum += weights.get(i);
+            cumulative[i] = sum;
+        }
+        total = sum;
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public String pick(Random random) {
+        int ticket = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (ticket < cumulative[i]) {
+                return names.get(i);
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.ecommerce.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficMixTest {
+
+    // Operations are picked in proportion to their weights; zero weights are dropped
+    @Test
+    public void picks_operations_in_proportion_to_weights() {
+        // Arrange
+        TrafficMix mix = new TrafficMix("read=3, write=1, delete=0");
+        Random random = new Random(7);
+        Map<String, Integer> picks = new HashMap<>();
+
+        // Act
+        for (int i = 0; i < 40_000; i++) {
+            picks.merge(mix.pick(random), 1, Integer::sum);
+        }
+
+        // Assert
+        assertEquals(List.of("read", "write"), mix.names());
+        assertEquals(30_000, picks.get("read"), 600);
+        assertEquals(10_000, picks.get("write"), 600);
+        assertFalse(picks.containsKey("delete"));
+    }
+
+    // Malformed or empty mixes are rejected up front
+    @Test
+    public void rejects_malformed_mixes() {
+        // Assert
+        assertThrows(IllegalArgumentException.class, () -> new TrafficMix("read"));
+        assertThrows(IllegalArgumentException.class, () -> new TrafficMix("read=-1"));
+        assertThrows(IllegalArgumentException.class, () -> new TrafficMix("read=0"));
+    }
+}
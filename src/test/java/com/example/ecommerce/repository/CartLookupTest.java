@@ -0,0 +1,73 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.service.CartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cart lookups by customer name against the migrated schema, where the name column
+ * compares case-insensitively.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cart_lookup")
+public class CartLookupTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void clearCarts() {
+        jdbcTemplate.update("DELETE FROM cart_categories");
+        jdbcTemplate.update("DELETE FROM cart");
+    }
+
+    // Any spelling of the customer's name finds the cart through the index
+    @Test
+    public void cart_lookup_by_customer_name_ignores_case() {
+        // Arrange
+        Cart cart = new Cart();
+        cart.setCustomerName("John");
+        Long id = cartRepository.save(cart).getId();
+
+        // Act
+        Optional<Cart> upper = cartService.getCartByCustomerName("JOHN");
+        Optional<Cart> lower = cartRepository.findByCustomerName("john");
+        Optional<Cart> other = cartService.getCartByCustomerName("Johnny");
+
+        // Assert
+        assertEquals(id, upper.orElseThrow().getId());
+        assertEquals(id, lower.orElseThrow().getId());
+        assertFalse(other.isPresent());
+    }
+
+    // Saving a cart under another spelling of the name extends the customer's existing cart
+    @Test
+    public void save_cart_under_other_spelling_extends_existing_cart() {
+        // Arrange
+        Cart first = new Cart();
+        first.setCustomerName("Alice");
+        Long id = cartService.saveCart(first).getId();
+        Cart second = new Cart();
+        second.setCustomerName("ALICE");
+
+        // Act
+        Cart saved = cartService.saveCart(second);
+
+        // Assert
+        assertEquals(id, saved.getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart", Integer.class));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ecommerce.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations over data written before customers were limited to one cart.
+ */
+public class CartMigrationTest {
+
+    // Duplicate carts of a customer are merged into the oldest one before the unique index is created
+    @Test
+    public void migration_merges_duplicate_carts_per_customer() {
+        // Arrange
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:cart_migration;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+        jdbcTemplate.update("INSERT INTO cart (id, customer_name) VALUES (1, 'Alice'), (2, 'alice'), (3, 'Bob'),"
+                + " (4, 'ALICE'), (5, NULL), (6, NULL)");
+        jdbcTemplate.update("INSERT INTO category (id, name) VALUES (10, 'Lamps'), (11, 'Desks'), (12, 'Rugs'),"
+                + " (13, 'Chairs')");
+        jdbcTemplate.update("INSERT INTO cart_categories (cart_id, categories_id) VALUES (1, 10), (2, 11), (3, 12),"
+                + " (4, 13)");
+
+        // Act
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        // Assert
+        List<Long> carts = jdbcTemplate.queryForList("SELECT id FROM cart ORDER BY id", Long.class);
+        List<Long> aliceCategories = jdbcTemplate.queryForList(
+                "SELECT categories_id FROM cart_categories WHERE cart_id = 1 ORDER BY categories_id", Long.class);
+        List<Long> bobCategories = jdbcTemplate.queryForList(
+                "SELECT categories_id FROM cart_categories WHERE cart_id = 3", Long.class);
+        assertEquals(List.of(1L, 3L, 5L, 6L), carts);
+        assertEquals(List.of(10L, 11L, 13L), aliceCategories);
+        assertEquals(List.of(12L), bobCategories);
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.ProductService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductCategoryQueryTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Category pages list member products in id order
+    @Test
+    public void products_by_category_are_paged_in_id_order() {
+        // Arrange
+        String category = "Category-" + UUID.randomUUID();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(productService.saveProduct(product("Member " + i, category, "Other")).getId());
+        }
+        productService.saveProduct(product("Outsider", "Other"));
+
+        // Act
+        List<Product> firstPage = productService.getProductsByCategory(category, 0, 3);
+        List<Product> secondPage = productService.getProductsByCategory(category, 1, 3);
+
+        // Assert
+        assertEquals(ids.subList(0, 3), firstPage.stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals(ids.subList(3, 5), secondPage.stream().map(Product::getId).collect(Collectors.toList()));
+    }
+
+    // A page loads its products' collections with one query per collection, not per product
+    @Test
+    public void products_by_category_load_collections_in_bulk() {
+        // Arrange
+        String category = "Category-" + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            Product product = product("Member " + i, category, "Other");
+            product.setAttributes(new HashMap<>(Map.of("source", "test")));
+            productService.saveProduct(product);
+        }
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        // Act
+        List<Product> page = productService.getProductsByCategory(category, 0, 10);
+
+        // Assert
+        assertEquals(3, statistics.getPrepareStatementCount() - statementsBefore);
+        assertEquals(5, page.size());
+        for (Product product : page) {
+            assertEquals(Arrays.asList(category, "Other"), product.getCategories());
+            assertEquals(Map.of("source", "test"), product.getAttributes());
+        }
+    }
+
+    // A product listing the category twice appears once, so pages line up with the count
+    @Test
+    public void products_by_category_skip_duplicate_memberships() {
+        // Arrange
+        String category = "Category-" + UUID.randomUUID();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(productService.saveProduct(product("Member " + i, category, category)).getId());
+        }
+
+        // Act
+        List<Product> firstPage = productService.getProductsByCategory(category, 0, 2);
+        List<Product> secondPage = productService.getProductsByCategory(category, 1, 2);
+        List<Product> thirdPage = productService.getProductsByCategory(category, 2, 2);
+
+        // Assert
+        assertEquals(ids.subList(0, 2), firstPage.stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals(ids.subList(2, 4), secondPage.stream().map(Product::getId).collect(Collectors.toList()));
+        assertTrue(thirdPage.isEmpty());
+        assertEquals(4L, productService.countProductsByCategory().get(category));
+    }
+
+    // Memberships of several products come back from one bulk query
+    @Test
+    public void category_memberships_are_fetched_in_bulk() {
+        // Arrange
+        String category = "Category-" + UUID.randomUUID();
+        Long first = productService.saveProduct(product("First", category, "Shared")).getId();
+        Long second = productService.saveProduct(product("Second", "Shared")).getId();
+        Long empty = productService.saveProduct(product("Empty")).getId();
+
+        // Act
+        Map<Long, List<String>> memberships = productService.getCategoryMemberships(Arrays.asList(first, second, empty));
+
+        // Assert
+        assertEquals(2, memberships.size());
+        assertTrue(memberships.get(first).containsAll(Arrays.asList(category, "Shared")));
+        assertEquals(Arrays.asList("Shared"), memberships.get(second));
+    }
+
+    // Database counts treat a repeated category on one product as one membership
+    @Test
+    public void category_counts_count_distinct_products() {
+        // Arrange
+        String category = "Category-" + UUID.randomUUID();
+        productService.saveProduct(product("First", category, category));
+        productService.saveProduct(product("Second", category));
+
+        // Act
+        Map<String, Long> counts = productService.countProductsByCategory();
+
+        // Assert
+        assertEquals(2L, counts.get(category));
+    }
+
+    private static Product product(String name, String... categories) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(10);
+        product.setCategories(new ArrayList<>(Arrays.asList(categories)));
+        return product;
+    }
+}
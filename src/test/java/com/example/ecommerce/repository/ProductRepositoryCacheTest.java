@@ -0,0 +1,72 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.config.CacheRegionsEndpoint;
+import com.example.ecommerce.entity.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProductRepositoryCacheTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheRegionsEndpoint cacheRegionsEndpoint;
+
+    // Loading a product in a new session is served from the second-level cache
+    @Test
+    public void find_by_id_hits_second_level_cache_in_new_session() {
+        // Arrange
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Product product = new Product();
+        product.setName("Cached Product");
+        product.setPrice(12.5);
+        product.setCategories(Arrays.asList("Electronics"));
+        Long id = transaction.execute(status -> productRepository.save(product).getId());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transaction.executeWithoutResult(status ->
+                productRepository.findById(id).ifPresent(found -> found.getCategories().size()));
+        long hitsBefore = statistics.getDomainDataRegionStatistics("product").getHitCount();
+        long collectionHitsBefore = statistics.getDomainDataRegionStatistics("product.categories").getHitCount();
+
+        // Act
+        String categories = transaction.execute(status ->
+                productRepository.findById(id).map(found -> found.getCategories().toString()).orElse(null));
+
+        // Assert
+        assertEquals("[Electronics]", categories);
+        assertEquals(hitsBefore + 1, statistics.getDomainDataRegionStatistics("product").getHitCount());
+        assertEquals(collectionHitsBefore + 1,
+                statistics.getDomainDataRegionStatistics("product.categories").getHitCount());
+    }
+
+    // Hit ratios are reported per region
+    @Test
+    public void cache_regions_endpoint_reports_hit_ratio_per_region() {
+        // Act
+        Map<String, Map<String, Object>> regions = cacheRegionsEndpoint.regions();
+
+        // Assert
+        assertTrue(regions.containsKey("product"));
+        assertTrue(regions.containsKey("category.products"));
+        assertTrue(regions.get("product").containsKey("hitRatio"));
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the main lookups are planned against the indexes created by the migrations
+ * rather than as table scans. Every plan is taken for SQL Hibernate generates, for
+ * repository queries and for lazy collection loads.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.ecommerce.repository.SchemaIndexTest$RecordingInspector"
+})
+public class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transaction;
+
+    @Test
+    public void cart_lookup_by_customer_name_uses_index() {
+        String sql = generatedSql(() -> cartRepository.findByCustomerName("alice"));
+        assertUsesIndex(bind(sql, "'alice'"), "UK_CART_CUSTOMER_NAME");
+    }
+
+    @Test
+    public void category_membership_lookup_uses_index() {
+        String sql = generatedSql(() -> productRepository.findByCategory("Lighting", PageRequest.of(0, 20)));
+        assertUsesIndex(bind(sql, "'Lighting'", "20"), "IDX_PRODUCT_CATEGORIES_CATEGORY");
+    }
+
+    @Test
+    public void product_collection_loads_use_indexes() {
+        Long id = transaction.execute(status -> {
+            Product product = new Product();
+            product.setName("Lamp");
+            product.setPrice(10);
+            product.setCategories(new ArrayList<>(List.of("Lighting")));
+            product.setAttributes(new HashMap<>(Map.of("color", "red")));
+            return productRepository.save(product).getId();
+        });
+
+        List<String> statements = loadedSql(entityManager -> {
+            Product product = entityManager.find(Product.class, id);
+            product.getCategories().size();
+            product.getAttributes().size();
+        });
+
+        assertUsesIndex(bindAll(select(statements, "product_categories"), id), "IDX_PRODUCT_CATEGORIES_PRODUCT");
+        assertUsesIndex(bindAll(select(statements, "product_attributes"), id), "IDX_PRODUCT_ATTRIBUTES_PRODUCT");
+    }
+
+    @Test
+    public void cart_collection_loads_use_indexes() {
+        Long[] ids = transaction.execute(status -> {
+            Product product = new Product();
+            product.setName("Desk");
+            product.setPrice(90);
+            Category category = new Category();
+            category.setName("Desks");
+            category.setProducts(new ArrayList<>(List.of(product)));
+            Cart cart = new Cart();
+            cart.setCustomerName("Schema Index");
+            cart.setCategories(new ArrayList<>(List.of(category)));
+            Cart saved = cartRepository.save(cart);
+            return new Long[] {saved.getId(), saved.getCategories().get(0).getId()};
+        });
+
+        List<String> statements = loadedSql(entityManager -> {
+            Cart cart = entityManager.find(Cart.class, ids[0]);
+            cart.getCategories().get(0).getProducts().size();
+        });
+
+        assertUsesIndex(bindAll(select(statements, "cart_categories"), ids[0]), "IDX_CART_CATEGORIES_CART");
+        assertUsesIndex(bindAll(select(statements, "category_products"), ids[1]), "IDX_CATEGORY_PRODUCTS_CATEGORY");
+    }
+
+    /**
+     * Runs {@code work} in a fresh entity manager with the second-level cache emptied, so
+     * every load reaches the database, and returns the SQL it issued.
+     */
+    private List<String> loadedSql(Consumer<EntityManager> work) {
+        entityManagerFactory.getCache().evictAll();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            RecordingInspector.STATEMENTS.clear();
+            work.accept(entityManager);
+            return new ArrayList<>(RecordingInspector.STATEMENTS);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static String select(List<String> statements, String table) {
+        return statements.stream()
+                .filter(sql -> sql.toLowerCase().contains(" from " + table + " "))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No query on " + table + " in " + statements));
+    }
+
+    private static String bindAll(String sql, Object literal) {
+        return sql.replace("?", String.valueOf(literal));
+    }
+
+    private String generatedSql(Runnable query) {
+        RecordingInspector.STATEMENTS.clear();
+        query.run();
+        assertEquals(1, RecordingInspector.STATEMENTS.size(), () -> "Expected one query: " + RecordingInspector.STATEMENTS);
+        return RecordingInspector.STATEMENTS.get(0);
+    }
+
+    private static String bind(String sql, String... literals) {
+        StringBuilder bound = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                bound.append(literals[parameter++]);
+            } else {
+                bound.append(c);
+            }
+        }
+        assertEquals(literals.length, parameter, () -> "Unexpected parameters in: " + sql);
+        return bound.toString();
+    }
+
+    private void assertUsesIndex(String query, String index) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+        assertNotNull(plan);
+        assertTrue(plan.toUpperCase().contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+        assertFalse(plan.contains("tableScan"), () -> "Unexpected table scan in plan:\n" + plan);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -2,10 +2,15 @@ package com.example.ecommerce.service;
 
 import com.example.ecommerce.entity.Cart;
 import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
 import com.example.ecommerce.repository.CartRepository;
+import com.example.ecommerce.shard.ShardedProductStore;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -24,6 +29,9 @@ public class CartServiceTest {
 
     @Mock
     private CartRepository cartRepository; // Service under test
+
+    @Mock
+    private RecommendationService recommendationService;
     // Successfully retrieve cart by existing customer name
     @Test
     public void test_get_cart_by_existing_customer_name() {
@@ -212,6 +220,73 @@ public class CartServiceTest {
         verify(cartRepository).findAll();
     }
 
+    // Saving a cart for a customer who already has one adds to that cart
+    @Test
+    public void save_cart_for_existing_customer_adds_to_existing_cart() {
+        // Arrange
+        Category lamps = new Category();
+        lamps.setName("Lamps");
+        Cart existing = new Cart();
+        existing.setId(1L);
+        existing.setCustomerName("Alice");
+        existing.setCategories(new ArrayList<>(List.of(lamps)));
+
+        Category desks = new Category();
+        desks.setName("Desks");
+        Cart cart = new Cart();
+        cart.setCustomerName("Alice");
+        cart.setCategories(new ArrayList<>(List.of(desks)));
+
+        when(cartRepository.findByCustomerName("Alice")).thenReturn(Optional.of(existing));
+        when(cartRepository.save(existing)).thenReturn(existing);
+
+        // Act
+        Cart savedCart = cartService.saveCart(cart);
+
+        // Assert
+        assertSame(existing, savedCart);
+        assertEquals(List.of(lamps, desks), savedCart.getCategories());
+        verify(cartRepository, never()).save(cart);
+    }
+
+    // Co-purchases are counted only once the save commits, so a failed save does not count its pairs
+    @Test
+    public void save_cart_records_co_purchases_after_commit() {
+        // Arrange
+        Cart cart = new Cart();
+        cart.setCustomerName("Alice");
+        cart.setCategories(new ArrayList<>());
+        when(cartRepository.save(cart)).thenReturn(cart);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            cartService.saveCart(cart);
+            verify(recommendationService, never()).recordCart(any(Cart.class));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Assert
+            verify(recommendationService).recordCart(cart);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // With sharded products a cart may not list products, which would land on the primary datasource
+    @Test
+    public void save_cart_listing_products_is_rejected_when_products_are_sharded() {
+        // Arrange
+        ReflectionTestUtils.setField(cartService, "shardedStore", mock(ShardedProductStore.class));
+        Category category = new Category();
+        category.setProducts(new ArrayList<>(List.of(new Product())));
+        Cart cart = new Cart();
+        cart.setCustomerName("Alice");
+        cart.setCategories(new ArrayList<>(List.of(category)));
+
+        // Act & Assert
+        assertThrows(ShardedCartProductsException.class, () -> cartService.saveCart(cart));
+        verify(cartRepository, never()).save(any(Cart.class));
+    }
+
     // Handle concurrent cart saves for same customer
     @Test
     public void test_concurrent_cart_saves_for_same_customer() throws InterruptedException {
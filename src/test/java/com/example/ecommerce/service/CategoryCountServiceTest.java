@@ -0,0 +1,81 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CategoryCountServiceTest {
+
+    private final ProductService productService = mock(ProductService.class);
+
+    private final CategoryCountService categoryCountService = new CategoryCountService(productService);
+
+    // Counts are loaded from the database once, on first use
+    @Test
+    public void counts_are_loaded_once_on_first_use() {
+        // Arrange
+        when(productService.countProductsByCategory()).thenReturn(new HashMap<>(Map.of("Lighting", 3L)));
+
+        // Act
+        long first = categoryCountService.getCount("Lighting");
+        long second = categoryCountService.getCount("Lighting");
+
+        // Assert
+        assertEquals(3, first);
+        assertEquals(3, second);
+        verify(productService, times(1)).countProductsByCategory();
+    }
+
+    // Creating, re-categorizing and deleting products adjust the counts without recounting
+    @Test
+    public void product_writes_adjust_counts_incrementally() {
+        // Arrange
+        when(productService.countProductsByCategory()).thenReturn(new HashMap<>(Map.of("Lighting", 1L)));
+        categoryCountService.getCounts();
+
+        // Act
+        categoryCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 2L,
+                product(2L, "Lighting", "Home", "Home"), Collections.emptyList()));
+        categoryCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 2L,
+                product(2L, "Home", "Garden"), Arrays.asList("Lighting", "Home")));
+        categoryCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L,
+                null, Arrays.asList("Lighting")));
+
+        // Assert
+        assertEquals(Map.of("Home", 1L, "Garden", 1L), categoryCountService.getCounts());
+        assertEquals(0, categoryCountService.getCount("Lighting"));
+        verify(productService, times(1)).countProductsByCategory();
+    }
+
+    // Writes before the first load are left for the load to pick up
+    @Test
+    public void writes_before_first_load_are_not_double_counted() {
+        // Arrange
+        categoryCountService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 1L,
+                product(1L, "Lighting"), Collections.emptyList()));
+        when(productService.countProductsByCategory()).thenReturn(new HashMap<>(Map.of("Lighting", 1L)));
+
+        // Act
+        long count = categoryCountService.getCount("Lighting");
+
+        // Assert
+        assertEquals(1, count);
+    }
+
+    private static Product product(long id, String... categories) {
+        Product product = new Product();
+        product.setId(id);
+        List<String> list = Arrays.asList(categories);
+        product.setCategories(list);
+        return product;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.CompactProduct;
+import com.example.ecommerce.entity.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductReadModelTest {
+
+    private final ProductReadModel readModel = new ProductReadModel();
+
+    // Compact product serializes to the same JSON as the entity it was built from
+    @Test
+    public void compact_product_serializes_like_entity() throws Exception {
+        // Arrange
+        Product product = product(1L, "red", "Electronics", "Lamps");
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        CompactProduct compact = readModel.put(product, readModel.generation());
+
+        // Assert
+        assertEquals(objectMapper.writeValueAsString(product), objectMapper.writeValueAsString(compact));
+    }
+
+    // Repeated strings across products are stored once in the dictionary
+    @Test
+    public void repeated_strings_share_dictionary_entries() {
+        // Arrange
+        long generation = readModel.generation();
+
+        // Act
+        for (long id = 1; id <= 100; id++) {
+            readModel.put(product(id, id % 2 == 0 ? "red" : "blue", "Electronics"), generation);
+        }
+
+        // Assert
+        assertEquals(100, readModel.size());
+        // "color", "size", "L", "red", "blue", "Electronics"
+        assertEquals(6, readModel.dictionarySize());
+        assertEquals("red", readModel.get(2L).getAttributes().get("color"));
+        assertEquals(Arrays.asList("Electronics"), readModel.get(3L).getCategories());
+    }
+
+    // A load that started before a removal does not store its stale copy
+    @Test
+    public void put_after_concurrent_removal_is_not_stored() {
+        // Arrange
+        long generation = readModel.generation();
+        readModel.remove(1L);
+
+        // Act
+        CompactProduct compact = readModel.put(product(1L, "red", "Electronics"), generation);
+
+        // Assert
+        assertNotNull(compact);
+        assertNull(readModel.get(1L));
+    }
+
+    // A committed write replaces the entry, but never with an older version than the one held
+    @Test
+    public void refresh_keeps_newest_version() {
+        // Arrange
+        Product newer = product(1L, "red", "Electronics");
+        newer.setVersion(2);
+        Product older = product(1L, "blue", "Electronics");
+        older.setVersion(1);
+
+        // Act
+        readModel.refresh(newer);
+        readModel.refresh(older);
+
+        // Assert
+        assertEquals("red", readModel.get(1L).getAttributes().get("color"));
+        assertEquals(2, readModel.get(1L).getVersion());
+    }
+
+    // Strings no product uses any more are dropped when the dictionary reaches its limit
+    @Test
+    public void dictionary_is_rebuilt_from_live_products_at_limit() {
+        // Arrange
+        ProductReadModel bounded = new ProductReadModel(20);
+
+        // Act
+        for (int version = 0; version < 100; version++) {
+            Product product = product(1L, "color " + version, "Electronics");
+            product.setVersion(version);
+            bounded.refresh(product);
+        }
+
+        // Assert
+        assertTrue(bounded.rebuilds() > 0);
+        assertTrue(bounded.dictionarySize() < 20);
+        assertEquals("color 99", bounded.get(1L).getAttributes().get("color"));
+        assertEquals(Arrays.asList("Electronics"), bounded.get(1L).getCategories());
+    }
+
+    // Null and empty collections round-trip as empty views
+    @Test
+    public void missing_collections_decode_as_empty() {
+        // Arrange
+        Product product = new Product();
+        product.setId(7L);
+        product.setCategories(null);
+        product.setAttributes(null);
+
+        // Act
+        CompactProduct compact = readModel.put(product, readModel.generation());
+
+        // Assert
+        assertTrue(compact.getCategories().isEmpty());
+        assertTrue(compact.getAttributes().isEmpty());
+    }
+
+    private static Product product(long id, String color, String... categories) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(9.99);
+        product.setCategories(Arrays.asList(categories));
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("color", color);
+        attributes.put("size", "L");
+        product.setAttributes(attributes);
+        return product;
+    }
+}
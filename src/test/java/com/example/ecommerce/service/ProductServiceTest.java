@@ -1,13 +1,18 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.dto.CompactProduct;
 import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.ProductChangedEvent;
 import com.example.ecommerce.repository.ProductRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
@@ -23,6 +28,9 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository productRepository; // Mocked repository
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService; // Service under test
     // Get all products returns list of products from repository
@@ -141,6 +149,109 @@ public class ProductServiceTest {
         verify(productRepository).save(existingProduct);
     }
 
+    // An update expecting a version the product has moved past is rejected without saving
+    @Test
+    public void update_with_stale_expected_version_is_rejected() {
+        // Arrange
+        Product existingProduct = new Product();
+        existingProduct.setId(8L);
+        existingProduct.setName("Lamp");
+        existingProduct.setVersion(3);
+
+        Product updatedProduct = new Product();
+        updatedProduct.setName("Desk Lamp");
+
+        when(productRepository.findById(8L)).thenReturn(Optional.of(existingProduct));
+
+        // Act
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> productService.updateProduct(8L, updatedProduct, 2L));
+
+        // Assert
+        assertEquals("Lamp", existingProduct.getName());
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    // Product writes publish a change event for derived caches
+    @Test
+    public void delete_product_publishes_change_event() {
+        // Arrange
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+
+        // Act
+        productService.deleteProduct(5L);
+
+        // Assert
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(ProductChangedEvent.Type.DELETED, event.getValue().getType());
+        assertEquals(5L, event.getValue().getProductId());
+        assertNull(event.getValue().getProduct());
+    }
+
+    // Product view is loaded once, then served from the read model, which takes the committed copy of a write
+    @Test
+    public void get_product_view_is_served_from_read_model_across_writes() {
+        // Arrange
+        Product product = new Product();
+        product.setId(3L);
+        product.setName("Lamp");
+        when(productRepository.findById(3L)).thenReturn(Optional.of(product));
+        Product updated = new Product();
+        updated.setId(3L);
+        updated.setName("Desk lamp");
+        updated.setVersion(1);
+
+        // Act
+        productService.getProductView(3L);
+        productService.getProductView(3L);
+        productService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 3L, updated));
+        Optional<CompactProduct> view = productService.getProductView(3L);
+
+        // Assert
+        assertEquals("Desk lamp", view.get().getName());
+        verify(productRepository, times(1)).findById(3L);
+    }
+
+    // A deleted product is dropped from the read model and looked up again
+    @Test
+    public void get_product_view_after_delete_reads_from_repository() {
+        // Arrange
+        Product product = new Product();
+        product.setId(3L);
+        when(productRepository.findById(3L)).thenReturn(Optional.of(product)).thenReturn(Optional.empty());
+
+        // Act
+        productService.getProductView(3L);
+        productService.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 3L, null));
+        Optional<CompactProduct> view = productService.getProductView(3L);
+
+        // Assert
+        assertFalse(view.isPresent());
+        verify(productRepository, times(2)).findById(3L);
+    }
+
+    // Update event carries the categories the product had before the update
+    @Test
+    public void update_product_event_carries_previous_categories() {
+        // Arrange
+        Product existingProduct = new Product();
+        existingProduct.setId(4L);
+        existingProduct.setCategories(new ArrayList<>(Arrays.asList("Lighting")));
+        Product updatedProduct = new Product();
+        updatedProduct.setCategories(Arrays.asList("Garden"));
+        when(productRepository.findById(4L)).thenReturn(Optional.of(existingProduct));
+        when(productRepository.save(existingProduct)).thenReturn(existingProduct);
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+
+        // Act
+        productService.updateProduct(4L, updatedProduct);
+
+        // Assert
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Arrays.asList("Lighting"), event.getValue().getPreviousCategories());
+        assertEquals(Arrays.asList("Garden"), event.getValue().getProduct().getCategories());
+    }
+
     // Delete product removes entity from repository
     @Test
     public void delete_product_removes_entity_from_repository() {
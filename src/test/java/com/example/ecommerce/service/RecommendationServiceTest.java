@@ -0,0 +1,143 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.RelatedProduct;
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationServiceTest {
+
+    private final RecommendationService recommendationService = new RecommendationService(1_000, 2, 100, 1_000);
+
+    // Products added to the same cart are related to each other
+    @Test
+    public void record_cart_relates_products_in_same_cart() {
+        // Arrange
+        recommendationService.recordCart(cart(1L, 10L, 20L, 30L));
+        recommendationService.recordCart(cart(2L, 10L, 20L));
+
+        // Act
+        List<RelatedProduct> related = recommendationService.getRelatedProducts(10L, 5);
+
+        // Assert
+        assertEquals(2, related.size());
+        assertEquals(20L, related.get(0).getProductId());
+        assertEquals(2, related.get(0).getCoPurchaseCount());
+        assertEquals(30L, related.get(1).getProductId());
+        assertEquals(1, related.get(1).getCoPurchaseCount());
+    }
+
+    // Re-saving a cart applies only the difference to the matrix
+    @Test
+    public void record_cart_applies_delta_when_cart_is_saved_again() {
+        // Arrange
+        recommendationService.recordCart(cart(1L, 10L, 20L));
+
+        // Act
+        recommendationService.recordCart(cart(1L, 10L, 30L));
+
+        // Assert
+        List<RelatedProduct> related = recommendationService.getRelatedProducts(10L, 5);
+        assertEquals(1, related.size());
+        assertEquals(30L, related.get(0).getProductId());
+        assertTrue(recommendationService.getRelatedProducts(20L, 5).isEmpty());
+        assertEquals(2, recommendationService.getEntryCount());
+    }
+
+    // Saving an unchanged cart does not inflate counts
+    @Test
+    public void record_cart_ignores_unchanged_cart() {
+        // Arrange
+        recommendationService.recordCart(cart(1L, 10L, 20L));
+
+        // Act
+        recommendationService.recordCart(cart(1L, 20L, 10L));
+
+        // Assert
+        assertEquals(1, recommendationService.getRelatedProducts(10L, 5).get(0).getCoPurchaseCount());
+    }
+
+    // Limit caps the number of returned products
+    @Test
+    public void get_related_products_honours_limit() {
+        // Arrange
+        recommendationService.recordCart(cart(1L, 1L, 2L, 3L, 4L, 5L));
+
+        // Act
+        List<RelatedProduct> related = recommendationService.getRelatedProducts(1L, 2);
+
+        // Assert
+        assertEquals(2, related.size());
+        assertEquals(2L, related.get(0).getProductId());
+        assertEquals(3L, related.get(1).getProductId());
+    }
+
+    // Unknown products have no recommendations
+    @Test
+    public void get_related_products_returns_empty_for_unknown_product() {
+        assertTrue(recommendationService.getRelatedProducts(42L, 10).isEmpty());
+    }
+
+    // Exceeding the memory budget prunes the lowest counts
+    @Test
+    public void record_cart_prunes_low_counts_when_budget_exceeded() {
+        // Arrange
+        RecommendationService bounded = new RecommendationService(20, 2, 100, 1_000);
+        for (long cartId = 1; cartId <= 5; cartId++) {
+            bounded.recordCart(cart(cartId, 1L, 2L));
+        }
+
+        // Act
+        for (long cartId = 10; cartId <= 20; cartId++) {
+            bounded.recordCart(cart(cartId, cartId * 100, cartId * 100 + 1));
+        }
+
+        // Assert
+        assertTrue(bounded.getEntryCount() <= 20);
+        assertEquals(5, bounded.getRelatedProducts(1L, 1).get(0).getCoPurchaseCount());
+    }
+
+    // Pruning stops at the lowest cut-off that brings the matrix under budget
+    @Test
+    public void record_cart_prunes_only_the_counts_it_needs_to() {
+        // Arrange
+        RecommendationService bounded = new RecommendationService(10, 1, 100, 1_000);
+        for (long cartId = 1; cartId <= 3; cartId++) {
+            bounded.recordCart(cart(cartId, 1L, 2L));
+        }
+        for (long cartId = 4; cartId <= 5; cartId++) {
+            bounded.recordCart(cart(cartId, 3L, 4L));
+        }
+        bounded.recordCart(cart(6L, 5L, 6L, 7L));
+
+        // Act
+        bounded.recordCart(cart(7L, 8L, 9L));
+
+        // Assert
+        assertEquals(4, bounded.getEntryCount());
+        assertEquals(2, bounded.getRelatedProducts(3L, 1).get(0).getCoPurchaseCount());
+        assertTrue(bounded.getRelatedProducts(5L, 1).isEmpty());
+    }
+
+    private static Cart cart(Long cartId, Long... productIds) {
+        List<Product> products = new ArrayList<>();
+        for (Long productId : productIds) {
+            Product product = new Product();
+            product.setId(productId);
+            products.add(product);
+        }
+        Category category = new Category();
+        category.setProducts(products);
+        Cart cart = new Cart();
+        cart.setId(cartId);
+        cart.setCategories(new ArrayList<>(Arrays.asList(category)));
+        return cart;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.TrendingProduct;
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendingServiceTest {
+
+    private final TrendingService trendingService = new TrendingService(1024, 4, 3, 3);
+
+    // Most viewed products rank first
+    @Test
+    public void get_trending_orders_products_by_score() {
+        // Arrange
+        record(1L, 5);
+        record(2L, 10);
+        record(3L, 1);
+
+        // Act
+        List<TrendingProduct> trending = trendingService.getTrending(10);
+
+        // Assert
+        assertEquals(3, trending.size());
+        assertEquals(2L, trending.get(0).getProductId());
+        assertEquals(10, trending.get(0).getScore());
+        assertEquals(1L, trending.get(1).getProductId());
+        assertEquals(3L, trending.get(2).getProductId());
+    }
+
+    // A newly hot product displaces the weakest candidate once capacity is reached
+    @Test
+    public void record_view_evicts_weakest_candidate_when_full() {
+        // Arrange
+        record(1L, 5);
+        record(2L, 5);
+        record(3L, 1);
+
+        // Act
+        record(4L, 20);
+
+        // Assert
+        List<TrendingProduct> trending = trendingService.getTrending(10);
+        assertEquals(3, trending.size());
+        assertEquals(4L, trending.get(0).getProductId());
+        assertTrue(trending.stream().noneMatch(product -> product.getProductId() == 3L));
+    }
+
+    // Cart additions are weighted more heavily than views
+    @Test
+    public void record_cart_additions_uses_cart_weight() {
+        // Arrange
+        Product product = new Product();
+        product.setId(7L);
+        Category category = new Category();
+        category.setProducts(Arrays.asList(product));
+        Cart cart = new Cart();
+        cart.setCategories(Arrays.asList(category));
+
+        // Act
+        trendingService.recordCartAdditions(cart);
+
+        // Assert
+        assertEquals(3, trendingService.getTrending(1).get(0).getScore());
+    }
+
+    // Decay halves scores and drops products whose score reaches zero
+    @Test
+    public void decay_halves_scores() {
+        // Arrange
+        record(1L, 8);
+        record(2L, 1);
+
+        // Act
+        trendingService.decay();
+
+        // Assert
+        List<TrendingProduct> trending = trendingService.getTrending(10);
+        assertEquals(1, trending.size());
+        assertEquals(4, trending.get(0).getScore());
+    }
+
+    // Reset forgets scores, so a product starts again from zero
+    @Test
+    public void reset_forgets_all_activity() {
+        // Arrange
+        record(1L, 8);
+
+        // Act
+        trendingService.reset();
+        record(2L, 1);
+
+        // Assert
+        List<TrendingProduct> trending = trendingService.getTrending(10);
+        assertEquals(1, trending.size());
+        assertEquals(2L, trending.get(0).getProductId());
+        assertEquals(1, trending.get(0).getScore());
+    }
+
+    private void record(Long productId, int views) {
+        for (int i = 0; i < views; i++) {
+            trendingService.recordView(productId);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.ecommerce.shard;
+
+import com.example.ecommerce.entity.Product;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedProductStoreTest {
+
+    private final List<DataSource> dataSources = new ArrayList<>();
+
+    private ShardedProductStore store;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (store != null) {
+            store.close();
+        }
+        for (DataSource dataSource : dataSources) {
+            new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+        }
+    }
+
+    // Hashed inserts are spread over all shards and each id is read back from its own shard
+    @Test
+    public void hash_sharding_spreads_inserts_and_routes_point_reads() {
+        // Arrange
+        store = open(ShardingStrategy.HASH, 1, 1, 1);
+
+        // Act
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            ids.add(store.save(product("Product " + i, i)).getId());
+        }
+
+        // Assert
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(3, rowCount(shard));
+        }
+        for (long id : ids) {
+            int shard = store.getRouter().shardFor(id);
+            assertEquals(1, new JdbcTemplate(dataSources.get(shard))
+                    .queryForObject("SELECT COUNT(*) FROM product WHERE id = ?", Integer.class, id));
+            assertEquals(id, store.findById(id).get().getId());
+        }
+    }
+
+    // Range sharding replaces products on the shard owning their id and appends new products to the last shard
+    @Test
+    public void range_sharding_routes_by_id_range() {
+        // Arrange
+        store = open(ShardingStrategy.RANGE, 1, 100, 200);
+        new JdbcTemplate(dataSources.get(1)).update("INSERT INTO product (id, name, price) VALUES (150, 'Stored', 1)");
+        Product existing = product("Existing", 1);
+        existing.setId(150L);
+
+        // Act
+        store.save(existing);
+        Product created = store.save(product("Created", 2));
+
+        // Assert
+        assertEquals(1, rowCount(1));
+        assertEquals(1, rowCount(2));
+        assertTrue(created.getId() >= 200);
+        assertEquals("Existing", store.findById(150L).get().getName());
+    }
+
+    // An id no shard holds is not trusted: the product gets a new id from the identity column
+    @Test
+    public void save_with_unknown_id_inserts_under_new_id() {
+        // Arrange
+        store = open(ShardingStrategy.RANGE, 1, 100, 200);
+        Product unknown = product("Unknown", 1);
+        unknown.setId(150L);
+
+        // Act
+        Product saved = store.save(unknown);
+        Product next = store.save(product("Next", 2));
+
+        // Assert
+        assertTrue(saved.getId() >= 200);
+        assertEquals(0, rowCount(1));
+        assertFalse(store.findById(150L).isPresent());
+        assertTrue(next.getId() > saved.getId());
+        assertEquals("Unknown", store.findById(saved.getId()).get().getName());
+    }
+
+    // Pages are merged across shards in global id order
+    @Test
+    public void pages_are_merged_in_id_order() {
+        // Arrange
+        store = open(ShardingStrategy.HASH, 1, 1, 1);
+        for (int i = 0; i < 10; i++) {
+            store.save(product("Product " + i, i));
+        }
+
+        // Act
+        List<Long> firstPage = ids(store.findPage(0, 4));
+        List<Long> thirdPage = ids(store.findPage(2, 4));
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), firstPage);
+        assertEquals(Arrays.asList(9L, 10L), thirdPage);
+        assertEquals(10, store.findAll().size());
+        assertEquals(Arrays.asList("Electronics"), store.findPage(0, 1).get(0).getCategories());
+    }
+
+    // Search results from every shard are merged by name
+    @Test
+    public void search_merges_results_by_name() {
+        // Arrange
+        store = open(ShardingStrategy.HASH, 1, 1);
+        for (String name : Arrays.asList("Desk lamp", "Chair", "Floor lamp", "Lamp shade", "Table")) {
+            store.save(product(name, 10));
+        }
+
+        // Act
+        List<Product> results = store.searchByName("LAMP", 10);
+
+        // Assert
+        assertEquals(Arrays.asList("Desk lamp", "Floor lamp", "Lamp shade"),
+                results.stream().map(Product::getName).collect(Collectors.toList()));
+        assertEquals("red", results.get(0).getAttributes().get("color"));
+    }
+
+    // Updating replaces the collections; deleting removes the product and its collections
+    @Test
+    public void update_and_delete_touch_only_owning_shard() {
+        // Arrange
+        store = open(ShardingStrategy.HASH, 1, 1);
+        Product product = store.save(product("Lamp", 10));
+        product.setCategories(new ArrayList<>(Arrays.asList("Lighting", "Home")));
+        product.setAttributes(Map.of("color", "blue"));
+
+        // Act
+        store.save(product);
+        Product updated = store.findById(product.getId()).get();
+        boolean deleted = store.deleteById(product.getId());
+
+        // Assert
+        assertEquals(Arrays.asList("Lighting", "Home"), updated.getCategories());
+        assertEquals(Map.of("color", "blue"), updated.getAttributes());
+        assertTrue(deleted);
+        assertFalse(store.findById(product.getId()).isPresent());
+        assertFalse(store.deleteById(product.getId()));
+    }
+
+    // Category pages, memberships and counts are combined across shards
+    @Test
+    public void category_queries_span_shards() {
+        // Arrange
+        store = open(ShardingStrategy.HASH, 1, 1, 1);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Product product = product("Product " + i, i);
+            product.setCategories(new ArrayList<>(i % 2 == 0 ? Arrays.asList("Even", "All") : Arrays.asList("All")));
+            ids.add(store.save(product).getId());
+        }
+
+        // Act
+        List<Long> evenPage = ids(store.findByCategory("Even", 0, 2));
+        Map<Long, List<String>> memberships = store.findCategoryMemberships(ids.subList(0, 2));
+        Map<String, Long> counts = store.countProductsByCategory();
+
+        // Assert
+        assertEquals(Arrays.asList(ids.get(0), ids.get(2)), evenPage);
+        assertEquals(Arrays.asList("Even", "All"), memberships.get(ids.get(0)));
+        assertEquals(Arrays.asList("All"), memberships.get(ids.get(1)));
+        assertEquals(Map.of("Even", 3L, "All", 6L), counts);
+    }
+
+    // A product listing the category twice appears once on category pages
+    @Test
+    public void category_pages_skip_duplicate_memberships() {
+        // Arrange
+        store = open(ShardingStrategy.HASH, 1, 1, 1);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Product product = product("Product " + i, i);
+            product.setCategories(new ArrayList<>(Arrays.asList("Twice", "Twice")));
+            ids.add(store.save(product).getId());
+        }
+
+        // Act
+        List<Long> firstPage = ids(store.findByCategory("Twice", 0, 2));
+        List<Long> secondPage = ids(store.findByCategory("Twice", 1, 2));
+
+        // Assert
+        assertEquals(ids.subList(0, 2), firstPage);
+        assertEquals(ids.subList(2, 4), secondPage);
+        assertEquals(4L, store.countProductsByCategory().get("Twice"));
+    }
+
+    // Merge skips and limits across sorted inputs
+    @Test
+    public void merge_applies_skip_and_limit() {
+        // Arrange
+        List<List<Integer>> sorted = Arrays.asList(Arrays.asList(1, 4, 7), Arrays.asList(2, 5), Arrays.asList(3, 6, 8));
+
+        // Act
+        List<Integer> merged = ShardedProductStore.merge(sorted, Integer::compare, 2, 4);
+
+        // Assert
+        assertEquals(Arrays.asList(3, 4, 5, 6), merged);
+    }
+
+    private ShardedProductStore open(ShardingStrategy strategy, long... rangeStarts) {
+        for (int i = 0; i < rangeStarts.length; i++) {
+            DataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+            Flyway.configure().dataSource(dataSource).load().migrate();
+            dataSources.add(dataSource);
+        }
+        ShardedProductStore opened = new ShardedProductStore(new ShardRouter(strategy, rangeStarts), dataSources, 4, 5_000);
+        opened.initializeIdentities();
+        return opened;
+    }
+
+    private int rowCount(int shard) {
+        return new JdbcTemplate(dataSources.get(shard)).queryForObject("SELECT COUNT(*) FROM product", Integer.class);
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    private static Product product(String name, double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategories(new ArrayList<>(Arrays.asList("Electronics")));
+        product.setAttributes(Map.of("color", "red"));
+        return product;
+    }
+}
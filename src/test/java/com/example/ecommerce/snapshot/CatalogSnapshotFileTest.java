@@ -0,0 +1,99 @@
+package com.example.ecommerce.snapshot;
+
+import com.example.ecommerce.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    // Products survive a write and read round trip unchanged
+    @Test
+    public void write_then_read_round_trips_products() throws IOException {
+        // Arrange
+        Path file = directory.resolve("catalog.snapshot");
+        Product lamp = product(1L, "Lamp", 19.99, Arrays.asList("Home", "Lighting"), Map.of("color", "red"));
+        Product mug = product(2L, null, 4.5, new ArrayList<>(), Map.of());
+
+        // Act
+        int written = CatalogSnapshotFile.write(file, Arrays.asList(Arrays.asList(lamp), Arrays.asList(mug)));
+        List<Product> read = CatalogSnapshotFile.read(file);
+
+        // Assert
+        assertEquals(2, written);
+        assertEquals(2, read.size());
+        assertEquals(1L, read.get(0).getId());
+        assertEquals("Lamp", read.get(0).getName());
+        assertEquals(19.99, read.get(0).getPrice());
+        assertEquals(Arrays.asList("Home", "Lighting"), read.get(0).getCategories());
+        assertEquals(Map.of("color", "red"), read.get(0).getAttributes());
+        assertNull(read.get(1).getName());
+        assertTrue(read.get(1).getCategories().isEmpty());
+    }
+
+    // An empty catalog produces a valid, empty snapshot
+    @Test
+    public void write_empty_catalog() throws IOException {
+        Path file = directory.resolve("empty.snapshot");
+
+        assertEquals(0, CatalogSnapshotFile.write(file, Collections.emptyList()));
+        assertTrue(CatalogSnapshotFile.read(file).isEmpty());
+    }
+
+    // A corrupted byte is caught by the checksum
+    @Test
+    public void read_rejects_corrupted_snapshot() throws IOException {
+        // Arrange
+        Path file = directory.resolve("corrupt.snapshot");
+        CatalogSnapshotFile.write(file, Arrays.asList(Arrays.asList(
+                product(1L, "Lamp", 19.99, Arrays.asList("Home"), Map.of()))));
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(30);
+            raw.write(raw.read() ^ 0xFF);
+        }
+
+        // Act & Assert
+        IOException error = assertThrows(IOException.class, () -> CatalogSnapshotFile.read(file));
+        assertTrue(error.getMessage().contains("checksum"));
+    }
+
+    // Snapshots from another format version are refused
+    @Test
+    public void read_rejects_other_version() throws IOException {
+        // Arrange
+        Path file = directory.resolve("version.snapshot");
+        CatalogSnapshotFile.write(file, Collections.emptyList());
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(4);
+            raw.writeInt(CatalogSnapshotFile.VERSION + 1);
+        }
+
+        // Act & Assert
+        IOException error = assertThrows(IOException.class, () -> CatalogSnapshotFile.read(file));
+        assertTrue(error.getMessage().contains("version"));
+    }
+
+    private static Product product(Long id, String name, double price, List<String> categories,
+                                   Map<String, String> attributes) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategories(categories);
+        product.setAttributes(attributes);
+        return product;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ecommerce.snapshot;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.web.ProductResponseCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot",
+        "ecommerce.snapshot.path=target/catalog-snapshot-test.snapshot"
+})
+public class CatalogSnapshotServiceTest {
+
+    @Autowired
+    private CatalogSnapshotService snapshotService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductResponseCache responseCache;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(snapshotService.getPath());
+    }
+
+    // A snapshot that is not restored because the database has products does not warm the cache with stale data
+    @Test
+    public void load_does_not_cache_snapshot_when_database_is_not_empty() throws Exception {
+        // Arrange
+        Product product = new Product();
+        product.setName("Snapshot lamp");
+        product.setPrice(10.0);
+        product = productService.saveProduct(product);
+        snapshotService.write();
+        Product changed = new Product();
+        changed.setName("Snapshot lamp");
+        changed.setPrice(12.0);
+        productService.updateProduct(product.getId(), changed);
+        Long id = product.getId();
+        AtomicBoolean loaded = new AtomicBoolean();
+
+        // Act
+        snapshotService.load();
+        responseCache.product(id, () -> {
+            loaded.set(true);
+            return "fresh";
+        });
+
+        // Assert
+        assertTrue(loaded.get());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.ecommerce.stress;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs one stress scenario on a number of threads and classifies every operation as
+ * committed, rejected by a concurrency check (conflict or not found, which callers are
+ * expected to handle), lock failure (deadlock or lock timeout) or unexpected error.
+ *
+ * Lock waits are measured by sampling the database's sessions for ones blocked on
+ * another session's lock every {@value #SAMPLE_MILLIS} ms.
+ */
+class StressRun {
+
+    private static final long SAMPLE_MILLIS = 2;
+
+    interface Operation {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3);
+
+    private final LongAdder committed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder lockFailures = new LongAdder();
+
+    private final ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+    private long blockedNanos;
+
+    private long lastSample;
+
+    private int threads;
+
+    private long elapsedNanos;
+
+    private boolean finished;
+
+    static StressRun run(DataSource dataSource, int threads, int iterations, long timeoutSeconds,
+                         Operation operation) throws Exception {
+        StressRun run = new StressRun();
+        run.threads = threads;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        run.execute(operation, thread, i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-" + t);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        try (Connection sampler = dataSource.getConnection()) {
+            long begin = System.nanoTime();
+            run.lastSample = begin;
+            start.countDown();
+            long deadline = begin + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (!done.await(SAMPLE_MILLIS, TimeUnit.MILLISECONDS) && System.nanoTime() < deadline) {
+                run.sampleBlockedSessions(sampler);
+            }
+            run.elapsedNanos = System.nanoTime() - begin;
+            run.finished = done.getCount() == 0;
+        }
+        if (!run.finished) {
+            workers.forEach(Thread::interrupt);
+        }
+        return run;
+    }
+
+    private void execute(Operation operation, int thread, int iteration) {
+        long begin = System.nanoTime();
+        try {
+            operation.run(thread, iteration);
+            committed.increment();
+        } catch (Exception e) {
+            classify(e);
+        } finally {
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin),
+                    latency.getHighestTrackableValue()));
+        }
+    }
+
+    private void classify(Exception e) {
+        if (e instanceof PessimisticLockingFailureException) {
+            lockFailures.increment();
+        } else if (e instanceof OptimisticLockingFailureException || e instanceof DataIntegrityViolationException
+                || e instanceof EmptyResultDataAccessException || e instanceof Rejected) {
+            rejected.increment();
+        } else {
+            unexpected.add(e);
+        }
+    }
+
+    private void sampleBlockedSessions(Connection sampler) throws SQLException {
+        try (Statement statement = sampler.createStatement();
+             ResultSet blocked = statement.executeQuery(
+                     "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE BLOCKER_ID IS NOT NULL")) {
+            blocked.next();
+            long now = System.nanoTime();
+            blockedNanos += blocked.getLong(1) * (now - lastSample);
+            lastSample = now;
+        }
+    }
+
+    boolean finished() {
+        return finished;
+    }
+
+    long committed() {
+        return committed.sum();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long lockFailures() {
+        return lockFailures.sum();
+    }
+
+    List<Throwable> unexpected() {
+        return new ArrayList<>(unexpected);
+    }
+
+    String summary(String scenario) {
+        double seconds = elapsedNanos / 1e9;
+        long operations = latency.getTotalCount();
+        return String.format("%-22s %3d threads: %,9.0f ops/s, p50 %7.2f ms, p99 %8.2f ms, "
+                        + "%,6d committed, %,6d rejected, %3d lock failures, %3d unexpected, lock wait %,8.0f ms (%.2f ms/op)",
+                scenario, threads, operations / seconds, latency.getValueAtPercentile(50) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0, committed(), rejected(), lockFailures(), unexpected.size(),
+                lockWaitMillis(), operations == 0 ? 0 : lockWaitMillis() / operations);
+    }
+
+    /** Estimated total time threads spent blocked on row locks. */
+    double lockWaitMillis() {
+        return blockedNanos / 1e6;
+    }
+
+    /** Thrown by scenarios for outcomes they handle themselves, such as a missing product. */
+    static class Rejected extends RuntimeException {
+
+        Rejected(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.ecommerce.stress;
+
+import com.example.ecommerce.entity.Cart;
+import com.example.ecommerce.entity.Category;
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.CartService;
+import com.example.ecommerce.service.CategoryCountService;
+import com.example.ecommerce.service.ProductService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Multi-threaded product and cart writes against the real (H2, row-locking) database,
+ * checking the invariants that single-threaded tests cannot: no lost updates, one cart
+ * per customer, no deadlocks, and derived category counts that match the database.
+ *
+ * Each scenario runs once per thread count and prints throughput, latency, rejected
+ * (conflicting) writes and time spent waiting on row locks, so the point where adding
+ * threads stops adding throughput is visible. Run with
+ * {@code mvn test -Dstress=true -Dtest=WriteContentionStressTest -Dstress.threads=1,2,4,8,16 -Dstress.operations=200}.
+ */
+@EnabledIfSystemProperty(named = "stress", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stress;LOCK_TIMEOUT=10000",
+        "spring.datasource.hikari.maximum-pool-size=${stress.pool-size:72}",
+        "spring.jpa.show-sql=false",
+        "ecommerce.rate-limit.enabled=false"
+})
+public class WriteContentionStressTest {
+
+    private static final int[] THREADS = Arrays.stream(System.getProperty("stress.threads", "1,2,4,8,16").split(","))
+            .mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 200);
+
+    private static final long TIMEOUT_SECONDS = Long.getLong("stress.timeout-seconds", 300);
+
+    private static final int RETRIES = 10_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CategoryCountService categoryCountService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final List<String> results = new ArrayList<>();
+
+    @AfterAll
+    public void printResults() {
+        results.forEach(System.out::println);
+    }
+
+    // Concurrent read-modify-write increments that retry on conflict are never lost
+    @Test
+    public void increments_are_not_lost_under_contention() throws Exception {
+        for (int threads : THREADS) {
+            // Arrange
+            Long id = productService.saveProduct(product("Counter " + threads, 0, List.of("Counters"),
+                    Map.of())).getId();
+            LongAdder conflicts = new LongAdder();
+
+            // Act
+            StressRun run = StressRun.run(dataSource, threads, OPERATIONS, TIMEOUT_SECONDS, (thread, iteration) -> {
+                for (int attempt = 0; attempt < RETRIES; attempt++) {
+                    Product current = productService.getProductById(id).orElseThrow();
+                    Product next = product(current.getName(), current.getPrice() + 1, List.of("Counters"), Map.of());
+                    try {
+                        productService.updateProduct(id, next, current.getVersion());
+                        return;
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicts.increment();
+                    }
+                }
+                throw new IllegalStateException("Increment did not succeed after " + RETRIES + " attempts");
+            });
+            results.add(run.summary("increment") + String.format(", %,d retried conflicts", conflicts.sum()));
+
+            // Assert
+            assertInvariantsHeld(run);
+            assertEquals((long) threads * OPERATIONS, run.committed());
+            assertEquals(run.committed(), jdbc.queryForObject("SELECT price FROM product WHERE id = ?", Double.class, id));
+        }
+    }
+
+    // Concurrent full replacements of one product never leave a mix of two writers' collections
+    @Test
+    public void replacements_never_mix_two_writers() throws Exception {
+        for (int threads : THREADS) {
+            // Arrange
+            Long id = productService.saveProduct(product("Replaced " + threads, 1, List.of("none-a", "none-b"),
+                    Map.of("writer", "none"))).getId();
+            LongAdder mixed = new LongAdder();
+
+            // Act
+            StressRun run = StressRun.run(dataSource, threads, OPERATIONS, TIMEOUT_SECONDS, (thread, iteration) -> {
+                String writer = thread + "-" + iteration;
+                try {
+                    productService.updateProduct(id, product("Replaced " + threads, 1 + iteration,
+                            List.of(writer + "-a", writer + "-b"), Map.of("writer", writer)));
+                } finally {
+                    if (thread == 0 && !consistent(id)) {
+                        mixed.increment();
+                    }
+                }
+            });
+            results.add(run.summary("replace") + String.format(", %d inconsistent reads", mixed.sum()));
+
+            // Assert
+            assertInvariantsHeld(run);
+            assertEquals(0, mixed.sum(), "A committed product mixed two writers' categories");
+            assertTrue(consistent(id), "The final product mixes two writers' categories");
+        }
+    }
+
+    // Customers saving carts at the same moment still end up with one cart each holding every category
+    @Test
+    public void one_cart_per_customer_under_concurrent_saves() throws Exception {
+        for (int threads : THREADS) {
+            // Arrange
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            int rounds = Math.max(OPERATIONS / 4, 1);
+            LongAdder conflicts = new LongAdder();
+
+            // Act
+            StressRun run = StressRun.run(dataSource, threads, rounds, TIMEOUT_SECONDS, (thread, iteration) -> {
+                barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                String customer = "stress-" + threads + "-" + iteration;
+                for (int attempt = 0; ; attempt++) {
+                    try {
+                        cartService.saveCart(cart(customer, "Item " + thread));
+                        return;
+                    } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+                        // The loser of a race to create or extend the cart retries against the winner's cart
+                        conflicts.increment();
+                        if (attempt == RETRIES) {
+                            throw e;
+                        }
+                    }
+                }
+            });
+            results.add(run.summary("cart") + String.format(", %,d retried conflicts", conflicts.sum()));
+
+            // Assert
+            assertInvariantsHeld(run);
+            List<Map<String, Object>> duplicates = jdbc.queryForList("SELECT customer_name, COUNT(*) AS carts FROM cart "
+                    + "WHERE customer_name LIKE ? GROUP BY customer_name HAVING COUNT(*) > 1", "stress-" + threads + "-%");
+            assertEquals(List.of(), duplicates, "Customers with more than one cart");
+            Integer lost = jdbc.queryForObject("SELECT COUNT(*) FROM cart c WHERE c.customer_name LIKE ? AND "
+                    + "(SELECT COUNT(*) FROM cart_categories cc WHERE cc.cart_id = c.id) <> ?",
+                    Integer.class, "stress-" + threads + "-%", threads);
+            assertEquals(0, lost, "Carts missing a concurrently added category");
+        }
+    }
+
+    // Updates racing deletes and re-creates neither deadlock nor let derived category counts drift
+    @Test
+    public void updates_racing_deletes_do_not_deadlock_or_drift() throws Exception {
+        for (int threads : THREADS) {
+            // Arrange
+            int slots = 8;
+            AtomicLongArray ids = new AtomicLongArray(slots);
+            for (int slot = 0; slot < slots; slot++) {
+                ids.set(slot, productService.saveProduct(product("Raced", 1, categories(slot), Map.of())).getId());
+            }
+            categoryCountService.getCounts();
+
+            // Act
+            StressRun run = StressRun.run(dataSource, Math.max(threads, 2), OPERATIONS, TIMEOUT_SECONDS, (thread, iteration) -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int slot = random.nextInt(slots);
+                long id = ids.get(slot);
+                if (thread % 2 == 0) {
+                    try {
+                        productService.updateProduct(id, product("Raced", 1 + iteration, categories(random.nextInt(100)),
+                                Map.of("colour", "c" + iteration)));
+                    } catch (RuntimeException e) {
+                        if ("Product not found".equals(e.getMessage())) {
+                            throw new StressRun.Rejected(e.getMessage());
+                        }
+                        throw e;
+                    }
+                } else {
+                    productService.deleteProduct(id);
+                    Long created = productService.saveProduct(product("Raced", 1, categories(random.nextInt(100)),
+                            Map.of())).getId();
+                    ids.compareAndSet(slot, id, created);
+                }
+            });
+            results.add(run.summary("update vs delete"));
+
+            // Assert
+            assertInvariantsHeld(run);
+            Map<String, Long> database = raceCounts(productService.countProductsByCategory());
+            Map<String, Long> derived = raceCounts(categoryCountService.getCounts());
+            assertEquals(database, derived, "Derived category counts drifted from the database");
+        }
+    }
+
+    private static void assertInvariantsHeld(StressRun run) {
+        assertTrue(run.finished(), "Stress threads did not finish; likely a lock-up");
+        assertEquals(0, run.lockFailures(), "Deadlocks or lock timeouts");
+        assertEquals(List.of(), run.unexpected().stream().map(Throwable::toString).distinct().collect(Collectors.toList()),
+                "Unexpected errors");
+    }
+
+    private boolean consistent(Long id) {
+        // One statement reads one committed snapshot of both collections
+        List<Map<String, Object>> rows = jdbc.queryForList("SELECT c.categories, a.attributes FROM product_categories c "
+                + "LEFT JOIN product_attributes a ON a.product_id = c.product_id AND a.attributes_key = 'writer' "
+                + "WHERE c.product_id = ?", id);
+        Set<String> writers = new HashSet<>();
+        Set<String> categories = new HashSet<>();
+        for (Map<String, Object> row : rows) {
+            writers.add(String.valueOf(row.get("ATTRIBUTES")));
+            categories.add(String.valueOf(row.get("CATEGORIES")));
+        }
+        if (writers.size() != 1 || rows.size() != 2) {
+            return false;
+        }
+        String writer = writers.iterator().next();
+        return categories.equals(Set.of(writer + "-a", writer + "-b"));
+    }
+
+    private static Map<String, Long> raceCounts(Map<String, Long> counts) {
+        Map<String, Long> race = new TreeMap<>();
+        counts.forEach((category, count) -> {
+            if (category.startsWith("Race ") && count > 0) {
+                race.put(category, count);
+            }
+        });
+        return race;
+    }
+
+    private static List<String> categories(int seed) {
+        return List.of("Race " + seed % 5, "Race " + (5 + seed % 3));
+    }
+
+    private static Product product(String name, double price, List<String> categories, Map<String, String> attributes) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategories(new ArrayList<>(categories));
+        product.setAttributes(new HashMap<>(attributes));
+        return product;
+    }
+
+    private static Cart cart(String customer, String category) {
+        Category item = new Category();
+        item.setName(category);
+        Cart cart = new Cart();
+        cart.setCustomerName(customer);
+        cart.setCategories(new ArrayList<>(List.of(item)));
+        return cart;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ecommerce.validation;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.CategoryCountService;
+import com.example.ecommerce.service.ProductService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:validation",
+        "ecommerce.validation.chunk-size=7",
+        "ecommerce.validation.batch-size=3",
+        "ecommerce.validation.pause-ms=0"
+})
+public class CatalogValidationJobTest {
+
+    @Autowired
+    private CatalogValidationJob job;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryCountService categoryCountService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    public void clearCatalog() {
+        jdbc.update("DELETE FROM product_categories");
+        jdbc.update("DELETE FROM product_attributes");
+        jdbc.update("DELETE FROM product");
+        categoryCountService.rebuild();
+    }
+
+    // A run fixes what it can in batches, reports the rest and recounts categories
+    @Test
+    public void run_fixes_catalog_and_reports_unfixable_products() throws Exception {
+        // Arrange
+        for (int i = 0; i < 20; i++) {
+            productService.saveProduct(product("Lamp " + i, 10, "Lighting"));
+        }
+        Long variant = productService.saveProduct(product(" Floor  lamp", 30, "lighting ")).getId();
+        Long free = productService.saveProduct(product("Free lamp", 0, "Lighting")).getId();
+
+        // Act
+        ValidationRun run = awaitFinished(job.start(true));
+
+        // Assert
+        assertEquals(ValidationRun.State.COMPLETED, run.getState());
+        assertEquals(22, run.getScanned());
+        assertEquals(1, run.getFixed());
+        assertEquals(1, run.getUnfixable());
+        assertEquals(free, run.getIssues(10).get(0).getProductId());
+        Product fixed = productService.getProductById(variant).orElseThrow();
+        assertEquals("Floor lamp", fixed.getName());
+        assertEquals(1, fixed.getVersion());
+        assertEquals(List.of("Lighting"), jdbc.queryForList(
+                "SELECT categories FROM product_categories WHERE product_id = ?", String.class, variant));
+        assertEquals(22, categoryCountService.getCount("Lighting"));
+        assertEquals(List.of("category-counts"), run.getRebuilt());
+    }
+
+    // A dry run reports problems without writing anything
+    @Test
+    public void dry_run_leaves_catalog_untouched() throws Exception {
+        // Arrange
+        Long variant = productService.saveProduct(product("Desk ", 50, "Desks")).getId();
+
+        // Act
+        ValidationRun run = awaitFinished(job.start(false));
+
+        // Assert
+        assertEquals(ValidationRun.State.COMPLETED, run.getState());
+        assertEquals(Map.of(ProductProblem.NAME_WHITESPACE, 1L), run.getProblemCounts());
+        assertEquals(0, run.getFixed());
+        assertEquals("Desk ", productService.getProductById(variant).orElseThrow().getName());
+    }
+
+    // A chunk is read with one query for the products and one per collection, however many products it holds
+    @Test
+    public void chunk_loads_collections_in_bulk() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            Product product = product("Lamp " + i, 10, "Lighting");
+            product.getAttributes().put("color", "red");
+            productService.saveProduct(product);
+        }
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        // Act
+        List<Product> chunk = productService.getProductsAfter(0, 10);
+
+        // Assert
+        assertEquals(3, statistics.getPrepareStatementCount() - statementsBefore);
+        assertEquals(10, chunk.size());
+        for (Product product : chunk) {
+            assertEquals(List.of("Lighting"), product.getCategories());
+            assertEquals(Map.of("color", "red"), product.getAttributes());
+        }
+    }
+
+    private static ValidationRun awaitFinished(ValidationRun run) throws InterruptedException {
+        for (int i = 0; i < 500 && run.getState() == ValidationRun.State.RUNNING; i++) {
+            Thread.sleep(20);
+        }
+        return run;
+    }
+
+    private static Product product(String name, double price, String... categories) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategories(new ArrayList<>(Arrays.asList(categories)));
+        product.setAttributes(new HashMap<>());
+        return product;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.ecommerce.validation;
+
+import com.example.ecommerce.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductValidatorTest {
+
+    private final ProductValidator validator = new ProductValidator(Map.of("Lighting", 40L, "lighting", 3L,
+            "Lighting ", 1L, "Desks", 7L));
+
+    // A product that follows every rule needs no fix
+    @Test
+    public void valid_product_has_no_problems() {
+        // Arrange
+        Product product = product("Desk Lamp", 25.0, Arrays.asList("Lighting", "Desks"), Map.of("color", "red"));
+
+        // Act
+        ValidationResult result = validator.validate(product);
+
+        // Assert
+        assertTrue(result.isValid());
+        assertNull(result.getFixed());
+    }
+
+    // Category spellings collapse to the most used one, and blanks and duplicates are dropped
+    @Test
+    public void categories_are_normalized_to_the_usual_spelling() {
+        // Arrange
+        Product product = product("Desk Lamp", 25.0, Arrays.asList("lighting", " ", "Lighting ", "desks", null),
+                Map.of());
+
+        // Act
+        ValidationResult result = validator.validate(product);
+
+        // Assert
+        assertEquals(Set.of(ProductProblem.CATEGORY_VARIANT, ProductProblem.BLANK_CATEGORY,
+                ProductProblem.DUPLICATE_CATEGORY), result.getProblems());
+        assertFalse(result.isUnfixable());
+        assertEquals(Arrays.asList("Lighting", "Desks"), result.getFixed().getCategories());
+    }
+
+    // Whitespace in names and attributes is trimmed and attributes without a key or value are dropped
+    @Test
+    public void names_and_attributes_are_trimmed() {
+        // Arrange
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(" color ", "red ");
+        attributes.put("", "x");
+        attributes.put("size", null);
+        Product product = product("  Desk   Lamp ", 25.0, Arrays.asList("Lighting"), attributes);
+        product.setVersion(4);
+
+        // Act
+        ValidationResult result = validator.validate(product);
+
+        // Assert
+        assertEquals(Set.of(ProductProblem.NAME_WHITESPACE, ProductProblem.ATTRIBUTE_WHITESPACE,
+                ProductProblem.BLANK_ATTRIBUTE), result.getProblems());
+        assertEquals("Desk Lamp", result.getFixed().getName());
+        assertEquals(Map.of("color", "red"), result.getFixed().getAttributes());
+        assertEquals(4, result.getVersion());
+    }
+
+    // Missing names and non-positive prices are reported but left for a person to fix
+    @Test
+    public void empty_name_and_non_positive_price_are_unfixable() {
+        // Arrange
+        Product product = product(" ", 0.0, Arrays.asList("Lighting"), Map.of());
+
+        // Act
+        ValidationResult result = validator.validate(product);
+
+        // Assert
+        assertEquals(Set.of(ProductProblem.EMPTY_NAME, ProductProblem.NON_POSITIVE_PRICE), result.getProblems());
+        assertTrue(result.isUnfixable());
+        assertNull(result.getFixed());
+    }
+
+    // Categories that no category in the catalog is named after are reported as orphaned, in any spelling
+    @Test
+    public void categories_without_owner_are_orphaned() {
+        // Arrange
+        ProductValidator owned = new ProductValidator(Map.of("Lighting", 40L, "Garden", 1L),
+                Arrays.asList("lighting", "Desks"));
+        Product orphaned = product("Desk Lamp", 25.0, Arrays.asList("Lighting", "Garden"), Map.of());
+        Product matched = product("Desk Lamp", 25.0, Arrays.asList("Lighting", "Desks "), Map.of());
+
+        // Act
+        ValidationResult orphanedResult = owned.validate(orphaned);
+        ValidationResult matchedResult = owned.validate(matched);
+
+        // Assert
+        assertEquals(Set.of(ProductProblem.ORPHANED_CATEGORY), orphanedResult.getProblems());
+        assertTrue(orphanedResult.isUnfixable());
+        assertEquals(Set.of(ProductProblem.CATEGORY_VARIANT), matchedResult.getProblems());
+    }
+
+    private static Product product(String name, double price, List<String> categories, Map<String, String> attributes) {
+        Product product = new Product();
+        product.setId(1L);
+        product.setName(name);
+        product.setPrice(price);
+        product.setCategories(new ArrayList<>(categories));
+        product.setAttributes(new HashMap<>(attributes));
+        return product;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ecommerce.warmup;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.service.TrendingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmup",
+        "ecommerce.warmup.requests=300",
+        "ecommerce.warmup.include-writes=true"
+})
+public class StartupWarmupTest {
+
+    @Autowired
+    private StartupWarmup startupWarmup;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReadinessProbe readinessProbe;
+
+    // The warm-up finishes before the application is ready and leaves no trace behind
+    @Test
+    public void warmup_completes_before_readiness_without_side_effects() {
+        // Assert
+        assertEquals(StartupWarmup.Outcome.COMPLETED, startupWarmup.getOutcome());
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+        assertEquals(1, meterRegistry.get("startup.warmup").tag("outcome", "completed").timer().count());
+        assertTrue(productService.getProductsAfter(0, 100).stream().map(Product::getName).noneMatch("warmup"::equals));
+        assertTrue(trendingService.getTrending(10).isEmpty());
+    }
+
+    // Readiness is only reported once the replay has finished
+    @Test
+    public void readiness_is_withheld_while_the_replay_runs() {
+        // Assert
+        assertFalse(readinessProbe.statesDuringReplay.isEmpty());
+        assertTrue(readinessProbe.statesDuringReplay.stream().allMatch(ReadinessState.REFUSING_TRAFFIC::equals));
+        assertEquals(List.of(503), readinessProbe.probeStatuses);
+    }
+
+    /**
+     * Checks readiness whenever a replayed request reaches the server, and calls the
+     * readiness endpoint once while the replay is under way.
+     */
+    @TestConfiguration
+    static class ReadinessProbe {
+
+        final List<ReadinessState> statesDuringReplay = new CopyOnWriteArrayList<>();
+
+        final List<Integer> probeStatuses = new CopyOnWriteArrayList<>();
+
+        private final AtomicBoolean probed = new AtomicBoolean();
+
+        @Bean
+        Filter readinessProbeFilter(ApplicationAvailability availability) {
+            return (request, response, chain) -> {
+                HttpServletRequest http = (HttpServletRequest) request;
+                if ("startup-warmup".equals(http.getHeader("X-Client-Id"))) {
+                    statesDuringReplay.add(availability.getReadinessState());
+                    if (probed.compareAndSet(false, true)) {
+                        probeStatuses.add(probe(http.getLocalPort()));
+                    }
+                }
+                chain.doFilter(request, response);
+            };
+        }
+
+        private static int probe(int port) throws IOException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/readiness")).build();
+            try {
+                return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
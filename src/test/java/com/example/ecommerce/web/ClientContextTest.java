@@ -0,0 +1,47 @@
+package com.example.ecommerce.web;
+
+import com.example.ecommerce.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientContextTest {
+
+    // The client header is ignored unless a gateway is trusted to set it
+    @Test
+    public void resolve_uses_client_header_only_when_trusted() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Client-Id", "alice");
+        RateLimitProperties untrusted = new RateLimitProperties();
+        RateLimitProperties trusted = new RateLimitProperties();
+        trusted.setTrustClientHeader(true);
+
+        // Act
+        String untrustedClient = ClientContext.resolve(request, untrusted);
+        String trustedClient = ClientContext.resolve(request, trusted);
+
+        // Assert
+        assertEquals("address:10.0.0.1", untrustedClient);
+        assertEquals("client:alice", trustedClient);
+    }
+
+    // An authenticated principal identifies the client whatever the header says
+    @Test
+    public void resolve_prefers_principal() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setUserPrincipal(() -> "bob");
+        request.addHeader("X-Client-Id", "alice");
+        RateLimitProperties trusted = new RateLimitProperties();
+        trusted.setTrustClientHeader(true);
+
+        // Act
+        String client = ClientContext.resolve(request, trusted);
+
+        // Assert
+        assertEquals("principal:bob", client);
+    }
+}
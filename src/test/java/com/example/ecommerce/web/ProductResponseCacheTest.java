@@ -0,0 +1,102 @@
+package com.example.ecommerce.web;
+
+import com.example.ecommerce.entity.Product;
+import com.example.ecommerce.event.ProductChangedEvent;
+import com.example.ecommerce.web.ProductResponseCache.EncodedResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductResponseCacheTest {
+
+    private final ProductResponseCache responseCache =
+            new ProductResponseCache(new ObjectMapper(), true, 1_000_000, true, 64);
+
+    // A second lookup is served from the cached bytes without loading again
+    @Test
+    public void product_is_encoded_once_and_served_from_cache() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        EncodedResponse first = responseCache.product(1L, () -> {
+            loads.incrementAndGet();
+            return product(1L, "Lamp");
+        });
+        EncodedResponse second = responseCache.product(1L, () -> {
+            loads.incrementAndGet();
+            return product(1L, "Lamp");
+        });
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertTrue(new String(first.getJson(), StandardCharsets.UTF_8).contains("\"name\":\"Lamp\""));
+    }
+
+    // Missing products are not cached
+    @Test
+    public void product_returns_null_when_loader_finds_nothing() {
+        assertNull(responseCache.product(2L, () -> null));
+        assertNotNull(responseCache.product(2L, () -> product(2L, "Desk")));
+    }
+
+    // Product writes evict the product and every listing page
+    @Test
+    public void product_change_invalidates_product_and_listings() {
+        // Arrange
+        responseCache.product(1L, () -> product(1L, "Lamp"));
+        responseCache.listing("all", () -> Arrays.asList(product(1L, "Lamp")));
+
+        // Act
+        responseCache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, null));
+
+        // Assert
+        EncodedResponse product = responseCache.product(1L, () -> product(1L, "Desk Lamp"));
+        EncodedResponse listing = responseCache.listing("all", () -> Arrays.asList(product(1L, "Desk Lamp")));
+        assertTrue(new String(product.getJson(), StandardCharsets.UTF_8).contains("Desk Lamp"));
+        assertTrue(new String(listing.getJson(), StandardCharsets.UTF_8).contains("Desk Lamp"));
+    }
+
+    // A read that overlaps a write does not cache its stale result
+    @Test
+    public void product_does_not_cache_result_loaded_during_write() {
+        // Act
+        responseCache.product(1L, () -> {
+            responseCache.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 1L, null));
+            return product(1L, "Stale");
+        });
+
+        // Assert
+        EncodedResponse fresh = responseCache.product(1L, () -> product(1L, "Fresh"));
+        assertTrue(new String(fresh.getJson(), StandardCharsets.UTF_8).contains("Fresh"));
+    }
+
+    // Large bodies are also kept gzip-compressed
+    @Test
+    public void product_keeps_gzip_body_above_threshold() throws Exception {
+        // Act
+        EncodedResponse response = responseCache.product(3L, () -> product(3L, "X".repeat(500)));
+
+        // Assert
+        assertNotNull(response.getGzip());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getGzip()))) {
+            assertArrayEquals(response.getJson(), in.readAllBytes());
+        }
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(10.0);
+        return product;
+    }
+}
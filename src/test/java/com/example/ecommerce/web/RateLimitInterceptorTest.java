@@ -0,0 +1,166 @@
+package com.example.ecommerce.web;
+
+import com.example.ecommerce.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitInterceptorTest {
+
+    // Requests beyond a client's burst are rejected with 429 and Retry-After
+    @Test
+    public void pre_handle_rejects_client_over_budget() {
+        // Arrange
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties(1, 2));
+
+        // Act
+        boolean first = interceptor.preHandle(request("alice", "/api/products/{id}"), new MockHttpServletResponse(), null);
+        boolean second = interceptor.preHandle(request("alice", "/api/products/{id}"), new MockHttpServletResponse(), null);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        boolean third = interceptor.preHandle(request("alice", "/api/products/{id}"), rejected, null);
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+    }
+
+    // Each client has its own budget
+    @Test
+    public void pre_handle_tracks_clients_independently() {
+        // Arrange
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties(1, 1));
+        interceptor.preHandle(request("alice", "/api/products/{id}"), new MockHttpServletResponse(), null);
+
+        // Act
+        boolean bob = interceptor.preHandle(request("bob", "/api/products/{id}"), new MockHttpServletResponse(), null);
+
+        // Assert
+        assertTrue(bob);
+        assertEquals(2, interceptor.trackedClients());
+    }
+
+    // The client header is chosen by the caller, so rotating it does not buy a fresh budget
+    @Test
+    public void pre_handle_ignores_untrusted_client_header() {
+        // Arrange
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties(1, 1));
+        MockHttpServletRequest first = request("alice", "/api/products/{id}");
+        first.addHeader("X-Client-Id", "spoof-1");
+        interceptor.preHandle(first, new MockHttpServletResponse(), null);
+
+        // Act
+        MockHttpServletRequest second = request("alice", "/api/products/{id}");
+        second.addHeader("X-Client-Id", "spoof-2");
+        boolean admitted = interceptor.preHandle(second, new MockHttpServletResponse(), null);
+
+        // Assert
+        assertFalse(admitted);
+        assertEquals(1, interceptor.trackedClients());
+    }
+
+    // Once max-clients buckets exist, a new client still gets its own budget instead of a shared one
+    @Test
+    public void pre_handle_evicts_buckets_beyond_max_clients() {
+        // Arrange
+        RateLimitProperties properties = properties(1, 1);
+        properties.setMaxClients(10);
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties);
+        for (int i = 0; i < 1000; i++) {
+            interceptor.preHandle(request("10.0.0." + i, "/api/products/{id}"), new MockHttpServletResponse(), null);
+        }
+
+        // Act
+        boolean bob = interceptor.preHandle(request("bob", "/api/products/{id}"), new MockHttpServletResponse(), null);
+
+        // Assert
+        assertTrue(bob);
+        assertTrue(interceptor.trackedClients() <= 10);
+    }
+
+    // A request carrying the open bypass token skips admission control until it is closed
+    @Test
+    public void pre_handle_admits_bypass_token_while_open() {
+        // Arrange
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties(1, 1));
+        interceptor.preHandle(request("alice", "/api/products/{id}"), new MockHttpServletResponse(), null);
+        String token = interceptor.openBypass();
+        MockHttpServletRequest bypassed = request("alice", "/api/products/{id}");
+        bypassed.addHeader(RateLimitInterceptor.BYPASS_HEADER, token);
+        MockHttpServletRequest forged = request("alice", "/api/products/{id}");
+        forged.addHeader(RateLimitInterceptor.BYPASS_HEADER, "not-the-token");
+
+        // Act
+        boolean whileOpen = interceptor.preHandle(bypassed, new MockHttpServletResponse(), null);
+        boolean withForgedToken = interceptor.preHandle(forged, new MockHttpServletResponse(), null);
+        interceptor.closeBypass();
+        boolean afterClose = interceptor.preHandle(bypassed, new MockHttpServletResponse(), null);
+
+        // Assert
+        assertTrue(whileOpen);
+        assertFalse(withForgedToken);
+        assertFalse(afterClose);
+    }
+
+    // Expensive routes are capped on concurrent requests and release permits on completion
+    @Test
+    public void pre_handle_enforces_route_concurrency_cap() {
+        // Arrange
+        RateLimitProperties properties = properties(1000, 1000);
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setMethod("GET");
+        route.setPattern("/api/products");
+        route.setMaxConcurrent(1);
+        properties.setRoutes(Arrays.asList(route));
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties);
+        MockHttpServletRequest inFlight = request("alice", "/api/products");
+        interceptor.preHandle(inFlight, new MockHttpServletResponse(), null);
+
+        // Act
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        boolean whileBusy = interceptor.preHandle(request("bob", "/api/products"), rejected, null);
+        interceptor.afterCompletion(inFlight, new MockHttpServletResponse(), null, null);
+        boolean afterRelease = interceptor.preHandle(request("bob", "/api/products"), new MockHttpServletResponse(), null);
+
+        // Assert
+        assertFalse(whileBusy);
+        assertEquals(429, rejected.getStatus());
+        assertTrue(afterRelease);
+    }
+
+    // Buckets refill over time
+    @Test
+    public void token_bucket_refills_at_configured_rate() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long start = 1_000_000_000L;
+        bucket.tryAcquire(start);
+
+        // Act & Assert
+        assertTrue(bucket.tryAcquire(start + 50_000_000L) > 0);
+        assertEquals(0, bucket.tryAcquire(start + 100_000_000L));
+        assertFalse(bucket.isIdle(start + 100_000_000L));
+        assertTrue(bucket.isIdle(start + 200_000_000L));
+    }
+
+    private static RateLimitProperties properties(double rate, int burst) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setClientRate(rate);
+        properties.setClientBurst(burst);
+        return properties;
+    }
+
+    private static MockHttpServletRequest request(String client, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setRemoteAddr(client);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}